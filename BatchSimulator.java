@@ -0,0 +1,374 @@
+package pacman;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Runs many independent headless games in parallel and reports throughput, wins and losses and the
+ * distribution of scores. Every game gets its own Game, ghosts and input on a shared Board, so the games
+ * never touch each other's state and can run on all cores of a fork-join pool.
+ *
+ * Run with: java pacman.BatchSimulator [key=value ...] where the keys are
+ *   games      number of games to run (default 10000)
+ *   ticks      tick limit for each game, after which it counts as unfinished (default 20000)
+ *   threads    size of the fork-join pool (default: number of cores)
+ *   seed       seed for the random inputs and ghost moves; game i uses seed + i (default 15)
+ *   script     letters L, R, U, D and '.' played in a loop instead of random input
+ *   bot        random or mcts, what steers pacman when there is no script (default random); the Monte Carlo tree
+ *              search bot searches on the same pool as the games, and its rollouts per second are reported
+ *   budget     milliseconds the mcts bot searches for per decision (default 1)
+ *   maze       maze file to play on instead of the support map (.maze text or .pacmap binary)
+ *   record     directory to write a recording of every game to, as game-<i>.pacrec, for pacman.Replay
+ *   pathing    classic, hierarchical or flow_field, how ghosts choose their direction (default classic)
+ *   ghosts     number of ghosts in each game (default 4)
+ *   collisions square or swept, how collisions with pacman are found (default square)
+ *   random     per_ghost or shared, whether each ghost draws its frightened moves from its own generator or all
+ *              from the game's (default per_ghost)
+ *   parallel   true to let the ghosts of each game decide in parallel on the same pool (default false)
+ *   tick       seconds per tick, a whole fraction of the 0.3 seconds an actor takes to cross a square (default 0.3);
+ *              shorter ticks play the same games over more ticks, so raise the tick limit to match
+ *   chase, scatter, frightened, pen   override the matching GameSettings values, all in seconds
+ */
+public class BatchSimulator {
+
+    private static final int DEFAULT_GAMES = 10_000;
+    private static final int DEFAULT_TICKS = 20_000;
+    private static final long DEFAULT_SEED = 15;
+    private static final double[] PERCENTILES = {0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    private Board board;
+    private GameSettings settings;
+    private int games;
+    private int tickLimit;
+    private long seed;
+    private String script;
+    private Path recordDirectory;
+    private boolean parallelGhosts;
+    private double botBudgetMillis; // 0 unless pacman is steered by the mcts bot
+
+    /*
+    Constructs a simulator that plays the given number of games on a board with the given settings. Each game is
+    seeded with the seed plus the game's index and, when the script is null, played with random input seeded the
+    same way. When the record directory is not null, every game is recorded there.
+     */
+    public BatchSimulator(Board board, GameSettings settings, int games, int tickLimit, long seed, String script,
+                          Path recordDirectory) {
+        this.board = board;
+        this.settings = settings;
+        this.games = games;
+        this.tickLimit = tickLimit;
+        this.seed = seed;
+        this.script = script;
+        this.recordDirectory = recordDirectory;
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+        GameSettings settings = new GameSettings();
+        int games = DEFAULT_GAMES;
+        int ticks = DEFAULT_TICKS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = DEFAULT_SEED;
+        String script = null;
+        Path recordDirectory = null;
+        Board board = null;
+        boolean parallelGhosts = false;
+        String bot = "random";
+        double budget = Constants.MCTS_BUDGET_MILLIS;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Arguments must be written as key=value: " + arg);
+            }
+            switch (pair[0]) {
+                case "games":
+                    games = Integer.parseInt(pair[1]);
+                    break;
+                case "ticks":
+                    ticks = Integer.parseInt(pair[1]);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(pair[1]);
+                    break;
+                case "seed":
+                    seed = Long.parseLong(pair[1]);
+                    break;
+                case "script":
+                    script = pair[1];
+                    break;
+                case "bot":
+                    bot = pair[1];
+                    break;
+                case "budget":
+                    budget = Double.parseDouble(pair[1]);
+                    break;
+                case "maze":
+                    board = MazeLoader.loadBoard(Paths.get(pair[1]));
+                    break;
+                case "record":
+                    recordDirectory = Files.createDirectories(Paths.get(pair[1]));
+                    break;
+                case "pathing":
+                    settings.setPathingMode(PathingMode.valueOf(pair[1].toUpperCase()));
+                    break;
+                case "collisions":
+                    settings.setCollisionMode(CollisionMode.valueOf(pair[1].toUpperCase()));
+                    break;
+                case "random":
+                    settings.setRandomMode(RandomMode.valueOf(pair[1].toUpperCase()));
+                    break;
+                case "parallel":
+                    parallelGhosts = Boolean.parseBoolean(pair[1]);
+                    break;
+                case "ghosts":
+                    settings.setGhostCount(Integer.parseInt(pair[1]));
+                    break;
+                case "tick":
+                    settings.setTickDuration(Double.parseDouble(pair[1]));
+                    break;
+                case "chase":
+                    settings.setChaseLimit(Double.parseDouble(pair[1]));
+                    break;
+                case "scatter":
+                    settings.setScatterLimit(Double.parseDouble(pair[1]));
+                    break;
+                case "frightened":
+                    settings.setFrightenedLimit(Double.parseDouble(pair[1]));
+                    break;
+                case "pen":
+                    settings.setPenCount(Double.parseDouble(pair[1]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+            }
+        }
+        if (board == null) {
+            board = Board.fromSupportMap();
+        }
+        BatchSimulator simulator = new BatchSimulator(board, settings, games, ticks, seed, script,
+                recordDirectory);
+        simulator.setParallelGhosts(parallelGhosts);
+        switch (bot) {
+            case "random":
+                break;
+            case "mcts":
+                simulator.setBotBudget(budget);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown bot: " + bot);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            System.out.println(simulator.run(pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+    Plays every game on the given pool and collects the results. Each game writes only its own slot of the
+    result arrays, so no locking is needed.
+     */
+    public Result run(ForkJoinPool pool) throws InterruptedException, ExecutionException {
+        int[] scores = new int[this.games];
+        int[] ticks = new int[this.games];
+        GameStatus[] statuses = new GameStatus[this.games];
+        LongAdder rollouts = new LongAdder();
+        LongAdder searchNanos = new LongAdder();
+        long start = System.nanoTime();
+        pool.submit(() -> IntStream.range(0, this.games).parallel().forEach(i -> {
+            Game game = new Game(this.board, this.settings, this.seed + i);
+            PacmanInput input = this.createInput(pool, i);
+            if (this.parallelGhosts) {
+                game.setGhostPool(pool);
+            }
+            InputRecorder recorder = this.startRecording(game, i);
+            ticks[i] = playGame(game, input, this.tickLimit);
+            if (recorder != null) {
+                recorder.close();
+            }
+            scores[i] = game.getScore();
+            statuses[i] = game.getStatus();
+            if (input instanceof MctsInput) {
+                rollouts.add(((MctsInput) input).getRollouts());
+                searchNanos.add(((MctsInput) input).getSearchNanos());
+            }
+        })).get();
+        long elapsed = System.nanoTime() - start;
+        Result result = new Result(this.settings, scores, ticks, statuses, elapsed, pool.getParallelism());
+        result.setRollouts(rollouts.sum(), searchNanos.sum());
+        return result;
+    }
+
+    /*
+    Creates the input for the game with the given index: the script when there is one, otherwise the mcts bot
+    searching on the pool or random input, seeded with the seed plus the index.
+     */
+    private PacmanInput createInput(ForkJoinPool pool, int index) {
+        if (this.script != null) {
+            return ScriptedInput.parse(this.script);
+        }
+        if (this.botBudgetMillis > 0) {
+            return new MctsInput(pool, this.botBudgetMillis, this.seed + index);
+        }
+        return new RandomInput(this.seed + index);
+    }
+
+    /*
+    Lets the mcts bot steer pacman in every game without a script, searching for the given number of milliseconds
+    per decision.
+     */
+    public void setBotBudget(double budgetMillis) {
+        this.botBudgetMillis = budgetMillis;
+    }
+
+    /*
+    Chooses whether the ghosts of each game decide in parallel on the pool that plays the games. This only pays
+    off with many ghosts or few games, and does not change any result.
+     */
+    public void setParallelGhosts(boolean parallelGhosts) {
+        this.parallelGhosts = parallelGhosts;
+    }
+
+    /*
+    Attaches a recorder for the game with the given index, or returns null when games are not recorded.
+     */
+    private InputRecorder startRecording(Game game, int index) {
+        if (this.recordDirectory == null) {
+            return null;
+        }
+        try {
+            return new InputRecorder(game, this.recordDirectory.resolve("game-" + index + Replay.EXTENSION));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    Plays one game until it is won or lost or the tick limit is reached, asking the input for a direction
+    before every tick. Returns the number of ticks played.
+     */
+    public static int playGame(Game game, PacmanInput input, int tickLimit) {
+        int tick = 0;
+        while (game.getStatus() == GameStatus.PLAYING && tick < tickLimit) {
+            Direction direction = input.nextInput(game);
+            if (direction != null) {
+                game.handleInput(direction);
+            }
+            game.updateGame();
+            tick++;
+        }
+        return tick;
+    }
+
+    /**
+     * Summary of one batch: throughput, outcome counts and the score distribution.
+     */
+    public static class Result {
+
+        private GameSettings settings;
+        private int[] sortedScores;
+        private long totalTicks;
+        private int won;
+        private int lost;
+        private int unfinished;
+        private long elapsedNanos;
+        private int threads;
+        private long rollouts;
+        private long searchNanos;
+
+        Result(GameSettings settings, int[] scores, int[] ticks, GameStatus[] statuses, long elapsedNanos, int threads) {
+            this.settings = settings;
+            this.sortedScores = scores.clone();
+            Arrays.sort(this.sortedScores);
+            for (int i = 0; i < statuses.length; i++) {
+                this.totalTicks += ticks[i];
+                switch (statuses[i]) {
+                    case WON:
+                        this.won++;
+                        break;
+                    case LOST:
+                        this.lost++;
+                        break;
+                    default:
+                        this.unfinished++;
+                }
+            }
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        /*
+        Records the rollouts the mcts bot played over the batch and the time it spent searching.
+         */
+        void setRollouts(long rollouts, long searchNanos) {
+            this.rollouts = rollouts;
+            this.searchNanos = searchNanos;
+        }
+
+        /*
+        Returns the rollouts the mcts bot played per second a game spent searching, or 0 without a bot.
+         */
+        public double getRolloutsPerSecond() {
+            return this.searchNanos == 0 ? 0 : this.rollouts / (this.searchNanos / 1e9);
+        }
+
+        public double getTicksPerSecond() {
+            return this.totalTicks / (this.elapsedNanos / 1e9);
+        }
+
+        public int getWon() {
+            return this.won;
+        }
+
+        public int getLost() {
+            return this.lost;
+        }
+
+        public int getUnfinished() {
+            return this.unfinished;
+        }
+
+        /*
+        Returns the score below which the given fraction of games fall.
+         */
+        public int getScorePercentile(double fraction) {
+            if (this.sortedScores.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(this.sortedScores.length - 1, Math.floor(fraction * this.sortedScores.length));
+            return this.sortedScores[index];
+        }
+
+        public double getMeanScore() {
+            return Arrays.stream(this.sortedScores).average().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("settings: %s%n", this.settings));
+            builder.append(String.format("games: %d on %d threads in %.2f s%n",
+                    this.sortedScores.length, this.threads, this.elapsedNanos / 1e9));
+            builder.append(String.format("ticks: %,d total, %,.0f ticks/s%n", this.totalTicks, this.getTicksPerSecond()));
+            builder.append(String.format("won: %d  lost: %d  unfinished: %d%n", this.won, this.lost, this.unfinished));
+            builder.append(String.format("score: mean %.1f  min %d", this.getMeanScore(), this.getScorePercentile(0)));
+            for (double percentile : PERCENTILES) {
+                builder.append(String.format("  p%s %d", Math.round(percentile * 100), this.getScorePercentile(percentile)));
+            }
+            builder.append(String.format("  max %d", this.getScorePercentile(1)));
+            if (this.rollouts > 0) {
+                builder.append(String.format("%nmcts: %,d rollouts in %.2f s of search, %,.0f rollouts/s",
+                        this.rollouts, this.searchNanos / 1e9, this.getRolloutsPerSecond()));
+            }
+            return builder.toString();
+        }
+    }
+}
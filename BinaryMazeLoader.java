@@ -0,0 +1,118 @@
+package pacman;
+
+import cs15.fnl.pacmanSupport.CS15SquareType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes mazes in a compact binary format, read through a memory-mapped FileChannel so that even very
+ * large mazes load without copying the file through a stream. Squares are packed two to a byte, so a 501x501 maze
+ * takes about 125 KB.
+ *
+ * Layout (big-endian):
+ *   int MAGIC, byte VERSION, int rows, int cols, int tunnelRow,
+ *   int penRow, int penCol, int penExitRow, int penExitCol, int dots, int energizers,
+ *   (rows * cols + 1) / 2 bytes of squares in row order, the first square of each pair in the high nibble,
+ *   each square being its position in TextMazeLoader.SQUARE_TYPES
+ *
+ * The dot and energizer totals are checked against the squares when loading.
+ */
+public class BinaryMazeLoader implements MazeLoader {
+
+    public static final String EXTENSION = ".pacmap";
+    private static final int MAGIC = 0x5041434D; // "PACM"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 11 + 1;
+
+    @Override
+    public Board load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    /*
+    Builds a board from a buffer positioned at the start of a binary maze.
+     */
+    public static Board read(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary maze");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported maze version: " + version);
+        }
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        int tunnelRow = buffer.getInt();
+        int penRow = buffer.getInt();
+        int penCol = buffer.getInt();
+        int penExitRow = buffer.getInt();
+        int penExitCol = buffer.getInt();
+        int dots = buffer.getInt();
+        int energizers = buffer.getInt();
+        if (rows <= 0 || cols <= 0 || buffer.remaining() < ((long) rows * cols + 1) / 2) {
+            throw new IllegalArgumentException("Maze of " + rows + "x" + cols + " does not fit in the file");
+        }
+        CS15SquareType[][] squares = new CS15SquareType[rows][cols];
+        int packed = 0;
+        for (int square = 0; square < rows * cols; square++) {
+            int code;
+            if (square % 2 == 0) {
+                packed = buffer.get() & 0xFF;
+                code = packed >>> 4;
+            } else {
+                code = packed & 0x0F;
+            }
+            if (code >= TextMazeLoader.SQUARE_TYPES.length) {
+                throw new IllegalArgumentException("Unknown square code " + code);
+            }
+            squares[square / cols][square % cols] = TextMazeLoader.SQUARE_TYPES[code];
+        }
+        Board board = new Board(squares, tunnelRow, penRow, penCol, penExitRow, penExitCol);
+        if (board.getDots().popCount() != dots || board.getEnergizers().popCount() != energizers) {
+            throw new IllegalArgumentException("Item totals in the header do not match the squares");
+        }
+        return board;
+    }
+
+    /*
+    Writes a board in the binary format through a FileChannel, replacing any existing file.
+     */
+    public static void write(Board board, Path path) throws IOException {
+        int squares = board.getSquares();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (squares + 1) / 2);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putInt(board.getRows());
+        buffer.putInt(board.getCols());
+        buffer.putInt(board.getTunnelRow());
+        buffer.putInt(board.getPenRow());
+        buffer.putInt(board.getPenCol());
+        buffer.putInt(board.getPenExitRow());
+        buffer.putInt(board.getPenExitCol());
+        buffer.putInt(board.getDots().popCount());
+        buffer.putInt(board.getEnergizers().popCount());
+        for (int square = 0; square < squares; square += 2) {
+            int high = TextMazeLoader.indexOf(board.getSquareType(square / board.getCols(), square % board.getCols()));
+            int low = 0;
+            if (square + 1 < squares) {
+                low = TextMazeLoader.indexOf(
+                        board.getSquareType((square + 1) / board.getCols(), (square + 1) % board.getCols()));
+            }
+            buffer.put((byte) (high << 4 | low));
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
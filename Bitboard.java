@@ -0,0 +1,113 @@
+package pacman;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size set of squares stored as bits in an array of longs, one bit per square of the board. The 23x23 board
+ * fits in nine longs, so a whole layer (walls, dots or energizers) can be tested, counted and copied with a
+ * few word operations.
+ *
+ * Squares are indexed as row * cols + col, see Board.squareIndex.
+ */
+public class Bitboard {
+
+    private long[] words;
+
+    /*
+    Constructs an empty bitboard able to hold the given number of squares.
+     */
+    public Bitboard(int size) {
+        this.words = new long[(size + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /*
+    Returns whether the square at the given index is in the set.
+     */
+    public boolean get(int index) {
+        return (this.words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /*
+    Adds the square at the given index to the set.
+     */
+    public void set(int index) {
+        this.words[index >>> 6] |= 1L << index;
+    }
+
+    /*
+    Removes the square at the given index from the set.
+     */
+    public void clear(int index) {
+        this.words[index >>> 6] &= ~(1L << index);
+    }
+
+    /*
+    Returns the number of squares in the set.
+     */
+    public int popCount() {
+        int count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /*
+    Returns whether the set holds no squares.
+     */
+    public boolean isEmpty() {
+        for (long word : this.words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+    Returns the first index from the given one on that is in exactly one of this set and another bitboard of the
+    same size, or -1 when the two sets agree from there on. Whole words are compared at a time, so walking the
+    differences between two nearly equal sets costs little more than comparing them.
+     */
+    public int nextDifference(Bitboard other, int from) {
+        int word = from >>> 6;
+        if (word >= this.words.length) {
+            return -1;
+        }
+        long difference = (this.words[word] ^ other.words[word]) & (-1L << from);
+        while (difference == 0) {
+            word++;
+            if (word == this.words.length) {
+                return -1;
+            }
+            difference = this.words[word] ^ other.words[word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(difference);
+    }
+
+    /*
+    Overwrites this set with the contents of another bitboard of the same size.
+     */
+    public void copyFrom(Bitboard other) {
+        System.arraycopy(other.words, 0, this.words, 0, this.words.length);
+    }
+
+    /*
+    Returns a new bitboard holding the same squares.
+     */
+    public Bitboard copy() {
+        Bitboard copy = new Bitboard(0);
+        copy.words = this.words.clone();
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Bitboard && Arrays.equals(this.words, ((Bitboard) other).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.words);
+    }
+}
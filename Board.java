@@ -0,0 +1,379 @@
+package pacman;
+
+import cs15.fnl.pacmanSupport.CS15SquareType;
+
+/**
+ * Immutable description of one maze layout: its dimensions, the type of every square, bitboards of the walls, dots
+ * and energizers, the starting squares of pacman and the ghosts, the tunnel row, the pen squares and the ghost path
+ * table built for those walls. A board holds no JavaFX state, so any number of games, with or without a renderer,
+ * can share one.
+ *
+ * Boards come from the support map or from a MazeLoader, so a layout of any size can be played without
+ * recompiling. The path table is only built when it fits in Constants.PATH_TABLE_MAX_BYTES; on larger boards the
+ * ghosts search every decision instead.
+ */
+public class Board {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private CS15SquareType[][] squares;
+    private int rows;
+    private int cols;
+    private Bitboard walls;
+    private Bitboard dots;
+    private Bitboard energizers;
+    private int pacmanStartRow = -1;
+    private int pacmanStartCol;
+    private int ghostStartRow = -1;
+    private int ghostStartCol;
+    private int tunnelRow;
+    private int penRow;
+    private int penCol;
+    private int penExitRow;
+    private int penExitCol;
+    private GhostPathTable pathTable;
+    private HierarchicalPathfinder pathfinder;
+    private int[] neighbours; // packed square reached from each square in each direction, -1 for walls
+    private int[] nearestOpen; // for every square, the closest open square to stand in for a ghost target there
+    private Bitboard junctions; // open squares with other than two open neighbours
+    private long fingerprint; // FNV-1a hash of the square types row by row, see getFingerprint
+
+    /*
+    Reads the support map's layout, whose tunnel and pen squares are given in Constants.
+     */
+    public Board(CS15SquareType[][] squares) {
+        this(squares, Constants.TUNNEL_ROW, Constants.INSIDE_PEN_ROW, Constants.INSIDE_PEN_COL,
+                Constants.OUTSIDE_PEN_ROW, Constants.OUTSIDE_PEN_COL);
+    }
+
+    /*
+    Reads a layout from a rectangular 2D array of square types, recording walls, items and starting squares, and
+    builds the path table once for the walls of this layout if it is small enough. The tunnel row is the row on
+    which pacman and the ghosts wrap from one side to the other (-1 for none), ghosts eaten by pacman wait on the
+    pen square and leave the pen on the pen exit square. Throws IllegalArgumentException for layouts without a
+    pacman or ghost start, with squares outside the board, or with an open square on the border other than the two
+    ends of the tunnel row, since actors would walk off the board there.
+     */
+    public Board(CS15SquareType[][] squares, int tunnelRow, int penRow, int penCol, int penExitRow, int penExitCol) {
+        this.squares = squares;
+        this.rows = squares.length;
+        this.cols = this.rows == 0 ? 0 : squares[0].length;
+        this.tunnelRow = tunnelRow;
+        this.penRow = penRow;
+        this.penCol = penCol;
+        this.penExitRow = penExitRow;
+        this.penExitCol = penExitCol;
+        this.walls = new Bitboard(this.getSquares());
+        this.dots = new Bitboard(this.getSquares());
+        this.energizers = new Bitboard(this.getSquares());
+        int openSquares = 0;
+        this.fingerprint = FNV_OFFSET;
+        for (int row = 0; row < this.rows; row++) {
+            if (squares[row].length != this.cols) {
+                throw new IllegalArgumentException("Row " + row + " has " + squares[row].length
+                        + " squares instead of " + this.cols);
+            }
+            for (int col = 0; col < this.cols; col++) {
+                switch (squares[row][col]) {
+                    case WALL:
+                        this.walls.set(this.squareIndex(row, col));
+                        break;
+                    case DOT:
+                        this.dots.set(this.squareIndex(row, col));
+                        break;
+                    case ENERGIZER:
+                        this.energizers.set(this.squareIndex(row, col));
+                        break;
+                    case PACMAN_START_LOCATION:
+                        this.pacmanStartRow = row;
+                        this.pacmanStartCol = col;
+                        break;
+                    case GHOST_START_LOCATION:
+                        this.ghostStartRow = row;
+                        this.ghostStartCol = col;
+                        break;
+                }
+                if (squares[row][col] != CS15SquareType.WALL) {
+                    openSquares++;
+                }
+                this.fingerprint = (this.fingerprint ^ squares[row][col].ordinal()) * FNV_PRIME;
+            }
+        }
+        if (this.pacmanStartRow < 0 || this.ghostStartRow < 0) {
+            throw new IllegalArgumentException("A board needs a pacman start and a ghost start");
+        }
+        if (!this.contains(penRow, penCol) || !this.contains(penExitRow, penExitCol)
+                || tunnelRow < -1 || tunnelRow >= this.rows) {
+            throw new IllegalArgumentException("The tunnel and pen squares must be on the board");
+        }
+        this.checkBorder();
+        this.neighbours = this.findNeighbours();
+        this.nearestOpen = this.findNearestOpen();
+        this.junctions = this.findJunctions();
+        if (GhostPathTable.tableSize(openSquares, this.rows, this.cols) <= Constants.PATH_TABLE_MAX_BYTES) {
+            this.pathTable = new GhostPathTable(this);
+        }
+    }
+
+    /*
+    Throws IllegalArgumentException naming the first open square on the border of the board, unless it is one of the
+    two ends of a tunnel row that is not itself on the border.
+     */
+    private void checkBorder() {
+        boolean innerTunnel = this.tunnelRow > 0 && this.tunnelRow < this.rows - 1;
+        for (int row = 0; row < this.rows; row++) {
+            for (int col = 0; col < this.cols; col++) {
+                boolean border = row == 0 || row == this.rows - 1 || col == 0 || col == this.cols - 1;
+                if (border && !this.walls.get(this.squareIndex(row, col))
+                        && !(innerTunnel && row == this.tunnelRow)) {
+                    throw new IllegalArgumentException("Open square on the border outside the tunnel row at row "
+                            + row + ", column " + col);
+                }
+            }
+        }
+    }
+
+    /*
+    Finds the open square next to every square in every direction, wrapping through the tunnel.
+     */
+    private int[] findNeighbours() {
+        int[] neighbours = new int[this.getSquares() * DIRECTIONS.length];
+        for (int square = 0; square < this.getSquares(); square++) {
+            for (Direction direction : DIRECTIONS) {
+                int row = direction.newRow(square / this.cols);
+                int col = direction.newCol(square % this.cols);
+                if (row == this.tunnelRow) {
+                    if (col < 0) {
+                        col = this.cols - 1;
+                    } else if (col >= this.cols) {
+                        col = 0;
+                    }
+                }
+                boolean open = this.contains(row, col) && !this.walls.get(this.squareIndex(row, col));
+                neighbours[square * DIRECTIONS.length + direction.ordinal()] = open ? this.squareIndex(row, col) : -1;
+            }
+        }
+        return neighbours;
+    }
+
+    /*
+    Finds the junctions: open squares with one, three or four open neighbours, where a ghost that does not turn
+    back has a choice to make or none at all. Every other open square lies inside a corridor.
+     */
+    private Bitboard findJunctions() {
+        Bitboard junctions = new Bitboard(this.getSquares());
+        for (int square = 0; square < this.getSquares(); square++) {
+            int open = 0;
+            for (Direction direction : DIRECTIONS) {
+                if (this.neighbour(square, direction) >= 0) {
+                    open++;
+                }
+            }
+            if (!this.walls.get(square) && open != 2) {
+                junctions.set(square);
+            }
+        }
+        return junctions;
+    }
+
+    /*
+    Finds the closest open square to every square with a breadth-first search from all open squares at once.
+     */
+    private int[] findNearestOpen() {
+        int[] nearest = new int[this.getSquares()];
+        int[] queue = new int[nearest.length];
+        int head = 0;
+        int tail = 0;
+        java.util.Arrays.fill(nearest, -1);
+        for (int square = 0; square < nearest.length; square++) {
+            if (!this.walls.get(square)) {
+                nearest[square] = square;
+                queue[tail++] = square;
+            }
+        }
+        while (head < tail) {
+            int square = queue[head++];
+            for (Direction direction : DIRECTIONS) {
+                int row = direction.newRow(square / this.cols);
+                int col = direction.newCol(square % this.cols);
+                if (this.contains(row, col) && nearest[this.squareIndex(row, col)] < 0) {
+                    nearest[this.squareIndex(row, col)] = nearest[square];
+                    queue[tail++] = this.squareIndex(row, col);
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /*
+    Creates the board for the standard support map.
+     */
+    public static Board fromSupportMap() {
+        return new Board(cs15.fnl.pacmanSupport.CS15SupportMap.getSupportMap());
+    }
+
+    /*
+    Packs a row and column into the index used by bitboards and the ghosts' search buffers.
+     */
+    public int squareIndex(int row, int col) {
+        return row * this.cols + col;
+    }
+
+    /*
+    Returns the packed square reached by moving one square from the given packed square, wrapping through the
+    tunnel, or -1 when that square is a wall or off the board.
+     */
+    public int neighbour(int square, Direction direction) {
+        return this.neighbours[square * DIRECTIONS.length + direction.ordinal()];
+    }
+
+    /*
+    Returns whether a packed square is a junction, an open square with other than two open neighbours.
+     */
+    public boolean isJunction(int square) {
+        return this.junctions.get(square);
+    }
+
+    /*
+    Returns the open square that stands in for a ghost target: the target itself when it is open, otherwise the
+    closest open square. Targets off the board are first moved to its edge.
+     */
+    public int nearestOpenSquare(int row, int col) {
+        int clampedRow = Math.max(0, Math.min(this.rows - 1, row));
+        int clampedCol = Math.max(0, Math.min(this.cols - 1, col));
+        return this.nearestOpen[this.squareIndex(clampedRow, clampedCol)];
+    }
+
+    /*
+    Returns whether a row and column lie on the board.
+     */
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < this.rows && col >= 0 && col < this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    /*
+    Returns the number of squares on the board, the size of its bitboards.
+     */
+    public int getSquares() {
+        return this.rows * this.cols;
+    }
+
+    /*
+    Returns a hash of the type of every square, row by row, which together with the dimensions identifies the maze.
+    It only depends on the squares, so it is the same on every run and every machine, and recordings keep it to be
+    replayed on the maze they were recorded on.
+     */
+    public long getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /*
+    Getter method to return the type of square at a given row and column.
+     */
+    public CS15SquareType getSquareType(int row, int col) {
+        return this.squares[row][col];
+    }
+
+    /*
+    Returns whether the square at a given row and column is a wall.
+     */
+    public boolean isWall(int row, int col) {
+        return this.walls.get(this.squareIndex(row, col));
+    }
+
+    /*
+    Getter method to return the walls of the board, which must not be changed by the caller.
+     */
+    public Bitboard getWalls() {
+        return this.walls;
+    }
+
+    /*
+    Getter method to return the dots at the start of a game, which must not be changed by the caller.
+     */
+    public Bitboard getDots() {
+        return this.dots;
+    }
+
+    /*
+    Getter method to return the energizers at the start of a game, which must not be changed by the caller.
+     */
+    public Bitboard getEnergizers() {
+        return this.energizers;
+    }
+
+    /*
+    Returns the number of dots and energizers pacman must eat to win.
+     */
+    public int getItemCount() {
+        return this.dots.popCount() + this.energizers.popCount();
+    }
+
+    public int getPacmanStartRow() {
+        return this.pacmanStartRow;
+    }
+
+    public int getPacmanStartCol() {
+        return this.pacmanStartCol;
+    }
+
+    public int getGhostStartRow() {
+        return this.ghostStartRow;
+    }
+
+    public int getGhostStartCol() {
+        return this.ghostStartCol;
+    }
+
+    /*
+    Getter method to return the row of the tunnel, or -1 when the board has none.
+     */
+    public int getTunnelRow() {
+        return this.tunnelRow;
+    }
+
+    public int getPenRow() {
+        return this.penRow;
+    }
+
+    public int getPenCol() {
+        return this.penCol;
+    }
+
+    public int getPenExitRow() {
+        return this.penExitRow;
+    }
+
+    public int getPenExitCol() {
+        return this.penExitCol;
+    }
+
+    /*
+    Getter method to return the ghost decisions precomputed for the walls of this board, or null when the board is
+    too large for a table.
+     */
+    public GhostPathTable getPathTable() {
+        return this.pathTable;
+    }
+
+    /*
+    Getter method to return the hierarchical pathfinder for this board. It is only built the first time a game asks
+    for it, because games using the classic ghost rule never need it.
+     */
+    public synchronized HierarchicalPathfinder getPathfinder() {
+        if (this.pathfinder == null) {
+            this.pathfinder = new HierarchicalPathfinder(this);
+        }
+        return this.pathfinder;
+    }
+}
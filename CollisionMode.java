@@ -0,0 +1,10 @@
+package pacman;
+
+/**
+ * Enum to represent how the game finds what pacman collides with, with values SQUARE (the first collideable on
+ * pacman's square, checked after pacman moves and again after the ghosts move) and SWEPT (every actor's movement
+ * over the whole tick, tested in one pass after everyone has moved, see CollisionSweep).
+ */
+public enum CollisionMode {
+    SQUARE, SWEPT;
+}
@@ -0,0 +1,141 @@
+package pacman;
+
+/**
+ * Finds everything pacman touches during a tick in one pass, for the swept collision mode. Every actor is treated
+ * as a point moving in a straight line from where it started the tick to where it ended it, all at the same time,
+ * and pacman touches a ghost when the two come closer than Constants.COLLISION_RADIUS at any moment of the tick.
+ * Head-on crossings, ghosts that leave the pen onto pacman and moves of more than one square are therefore all
+ * caught by the same test, run once per ghost whatever the speeds, instead of checking pacman's square after each
+ * actor moves. Moves through the tunnel are measured the short way round, across the edge of the board.
+ *
+ * Items are points on the square pacman ends the tick on. Whatever pacman touches is resolved in the order it is
+ * touched, an item before a ghost touched at the same moment and ghosts in the order of the game, so an energizer
+ * eaten on the way turns the ghosts touched after it frightened. A ghost that is not frightened ends the pass,
+ * since pacman loses a life and the round restarts.
+ *
+ * The start of every actor and the ghosts touched are kept in arrays sized once, so a pass allocates nothing.
+ */
+public class CollisionSweep {
+
+    static final double NO_CONTACT = Double.POSITIVE_INFINITY;
+
+    private Game game;
+    private Board board;
+    // where pacman and every ghost started the tick
+    private int pacmanRow;
+    private int pacmanCol;
+    private int[] ghostRows;
+    private int[] ghostCols;
+    // ghosts touched in the current pass, sorted by the time they are touched at
+    private int[] contacts;
+    private double[] times;
+
+    public CollisionSweep(Game game, int ghosts) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.ghostRows = new int[ghosts];
+        this.ghostCols = new int[ghosts];
+        this.contacts = new int[ghosts];
+        this.times = new double[ghosts];
+    }
+
+    /*
+    Records where every actor starts the tick. Called after ghosts leave the pen and before anyone moves, so that a
+    ghost placed on pacman's square touches it at the very start of the tick.
+     */
+    public void begin(Pacman pacman, Ghost[] ghosts) {
+        this.pacmanRow = pacman.getRow();
+        this.pacmanCol = pacman.getCol();
+        for (int i = 0; i < ghosts.length; i++) {
+            this.ghostRows[i] = ghosts[i].getRow();
+            this.ghostCols[i] = ghosts[i].getCol();
+        }
+    }
+
+    /*
+    Sweeps every actor from its start to where it is now and lets pacman collide with whatever it touched, in the
+    order it touched them. Called once every actor has moved.
+     */
+    public void resolve(Pacman pacman, Ghost[] ghosts) {
+        // work relative to pacman's start, with pacman's own move subtracted from every ghost's
+        double moveX = this.wrapped(pacman.getCol() - this.pacmanCol);
+        double moveY = pacman.getRow() - this.pacmanRow;
+        int count = 0;
+        for (int i = 0; i < ghosts.length; i++) {
+            Ghost ghost = ghosts[i];
+            double startX = this.wrapped(this.ghostCols[i] - this.pacmanCol);
+            double startY = this.ghostRows[i] - this.pacmanRow;
+            double velocityX = this.wrapped(ghost.getCol() - this.ghostCols[i]) - moveX;
+            double velocityY = ghost.getRow() - this.ghostRows[i] - moveY;
+            double time = contactTime(startX, startY, velocityX, velocityY, Constants.COLLISION_RADIUS);
+            if (time != NO_CONTACT) {
+                // insertion sort, keeping ghosts touched at the same time in the order of the game
+                int k = count++;
+                while (k > 0 && this.times[k - 1] > time) {
+                    this.contacts[k] = this.contacts[k - 1];
+                    this.times[k] = this.times[k - 1];
+                    k--;
+                }
+                this.contacts[k] = i;
+                this.times[k] = time;
+            }
+        }
+
+        Collideable item = this.game.itemAt(this.board.squareIndex(pacman.getRow(), pacman.getCol()));
+        // the item stands still at the end of pacman's move
+        double itemTime = item == null ? NO_CONTACT
+                : contactTime(moveX, moveY, -moveX, -moveY, Constants.COLLISION_RADIUS);
+        for (int k = 0; k < count; k++) {
+            if (item != null && itemTime <= this.times[k]) {
+                item.collide();
+                item = null;
+            }
+            boolean deadly = !this.game.getFrightMode();
+            ghosts[this.contacts[k]].collide();
+            if (deadly) {
+                return;
+            }
+        }
+        if (item != null && itemTime != NO_CONTACT) {
+            item.collide();
+        }
+    }
+
+    /*
+    Returns the earliest time in [0, 1] at which a point starting at the given offset from another and moving at
+    the given velocity relative to it comes closer to it than the radius, or NO_CONTACT if it never does. Offsets
+    and velocities are in squares and squares per tick.
+     */
+    static double contactTime(double startX, double startY, double velocityX, double velocityY, double radius) {
+        double gap = startX * startX + startY * startY - radius * radius;
+        if (gap < 0) {
+            return 0;
+        }
+        double speed = velocityX * velocityX + velocityY * velocityY;
+        double approach = startX * velocityX + startY * velocityY;
+        if (approach >= 0) {
+            return NO_CONTACT; // standing still or moving apart
+        }
+        // smallest root of |start + t * velocity|^2 = radius^2
+        double discriminant = approach * approach - speed * gap;
+        if (discriminant <= 0) {
+            return NO_CONTACT; // passes by at the radius or further
+        }
+        double time = (-approach - Math.sqrt(discriminant)) / speed;
+        return time <= 1 ? time : NO_CONTACT;
+    }
+
+    /*
+    Returns a column difference taken the short way round the board, so that moves through the tunnel stay short.
+     */
+    private int wrapped(int cols) {
+        int width = this.board.getCols();
+        if (cols > width / 2) {
+            return cols - width;
+        }
+        if (cols < -width / 2) {
+            return cols + width;
+        }
+        return cols;
+    }
+}
@@ -7,15 +7,16 @@ import javafx.scene.paint.Color;
  */
 public class Constants {
 
-    // describes the constants in relation to the geometry of the map
+    // describes the constants in relation to the geometry of the support map; loaded boards carry their own
     public static final int MAZE_DIMENSION = 23;
     public static final int SQ_WIDTH = 25;
     public static final double SQ_OFFSET = SQ_WIDTH/2;
     public static final int RIGHT_EXTREMA = 22;
     public static final int TUNNEL_ROW = 11;
     public static final int MIN_DISTANCE = 99999;
-    public static final double CLYDE_OFFSET = 4 * Constants.SQ_OFFSET;
-    public static final double PINKY_OFFSET = Constants.SQ_OFFSET*2;
+    // clyde starts two rows above the ghost start square and pinky one column to its left
+    public static final int CLYDE_OFFSET = 2;
+    public static final int PINKY_OFFSET = 1;
 
     // describes the constants in relation to dimensions of the game
     public static final int SIDEBAR_HEIGHT = 60;
@@ -31,33 +32,87 @@ public class Constants {
     public static final double PACMAN_RADIUS = 9;
     public static final Color DOT_COLOR = Color.WHITE;
     public static final Color ENERGIZER_COLOR = Color.WHITE;
-    public static final int TOTAL_DOTS = 186;
     public static final Color WALL_COLOR = Color.DARKBLUE;
+    public static final Color PATH_COLOR = Color.BLACK;
+    public static final Color PACMAN_COLOR = Color.YELLOW;
+    public static final Color FRIGHTENED_COLOR = Color.BLUE;
+    // ghost colours in the order of the roles in Game.getGhosts(): inky, clyde, pinky, blinky
+    public static final Color[] GHOST_COLORS = {Color.ORANGE, Color.RED, Color.PINK, Color.CYAN};
+    // describes the sprites drawn into the atlas: pacman's widest mouth, and the ghosts' eyes and skirt
+    public static final double PACMAN_MOUTH_DEGREES = 80;
+    public static final Color GHOST_EYE_COLOR = Color.WHITE;
+    public static final Color GHOST_PUPIL_COLOR = Color.DARKBLUE;
+    public static final int GHOST_SKIRT_TEETH = 3;
 
     // describes the constants used to set ghost targets in chase mode
     public static final int INKY_ROW = 4;
     public static final int PINKY_COL = 3;
     public static final int BLINKY_COL = 2;
 
-    // describes the constants in relation to the timeline and speed
+    // describes the constants in relation to the timeline and speed: the seconds an actor takes to cross a square,
+    // which is also the default tick, and the seconds the game modes last
     public static final double TIMELINE_DURATION = 0.3;
     public static final double PACMAN_SPEED = 25;
-    public static final double SCATTER_LIMIT = 17/Constants.TIMELINE_DURATION;
-    public static final double FRIGHTENED_LIMIT = 7/Constants.TIMELINE_DURATION;
-    public static final double CHASE_LIMIT = 10/Constants.TIMELINE_DURATION;
+    public static final double SCATTER_LIMIT = 17;
+    public static final double FRIGHTENED_LIMIT = 7;
+    public static final double CHASE_LIMIT = 10;
+    // tick of games played in the window, 60 per second; start with -Dpacman.tick=<seconds> to play with another
+    public static final double PLAY_TICK_DURATION = TIMELINE_DURATION / 18;
+    public static final String TICK_PROPERTY = "pacman.tick";
+    public static final double MAX_FRAME_TIME = 0.25;
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    // describes the constants in relation to tick metrics; start with -Dpacman.metrics=true to show the overlay
+    public static final String METRICS_OVERLAY_PROPERTY = "pacman.metrics";
+    public static final String METRICS_NAME = "game";
+    public static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    // start with -Dpacman.record=<file> to record the player's inputs
+    public static final String RECORD_PROPERTY = "pacman.record";
+    // start with -Dpacman.renderer=canvas to draw the maze on canvases instead of one node per square
+    public static final String RENDERER_PROPERTY = "pacman.renderer";
 
     // describes the constants in relation to the ghost pen
     public static final double PEN_COUNT = 5;
-    public static final int OUTSIDE_PEN_X = 275;
-    public static final int OUTSIDE_PEN_Y = 200;
-    public static final int INSIDE_PEN_X = 250;
-    public static final int INSIDE_PEN_Y = 250;
+    public static final int OUTSIDE_PEN_ROW = 8;
+    public static final int OUTSIDE_PEN_COL = 11;
+    public static final int INSIDE_PEN_ROW = 10;
+    public static final int INSIDE_PEN_COL = 10;
+
+    // boards whose ghost path table would take more memory than this are played without one
+    public static final long PATH_TABLE_MAX_BYTES = 64L << 20;
+    // number of ghosts in a game unless the settings say otherwise
+    public static final int GHOST_COUNT = 4;
+    // most ghosts one task decides for when ghosts decide in parallel
+    public static final int GHOSTS_PER_TASK = 16;
+    // flow fields a game keeps for the targets its ghosts head for, one per target
+    public static final int FLOW_FIELD_CACHE = 8;
+    // pacman touches a ghost or an item when their centres come closer than this many squares, in swept collisions
+    public static final double COLLISION_RADIUS = 0.5;
+    // the Monte Carlo tree search bot: milliseconds it searches per decision unless told otherwise, most squares
+    // between decisions along a corridor, squares a rollout looks ahead, and nodes in each worker's tree
+    public static final double MCTS_BUDGET_MILLIS = 1;
+    public static final int MCTS_STEP_SQUARES = 4;
+    public static final int MCTS_HORIZON_SQUARES = 48;
+    public static final int MCTS_MAX_NODES = 1 << 14;
+    // rollout rewards are points gained, less a penalty per life lost and per square from the closest item at the
+    // root, plus a bonus for winning, over the scale
+    public static final double MCTS_DEATH_PENALTY = 1000;
+    public static final double MCTS_DISTANCE_PENALTY = 10;
+    public static final double MCTS_WIN_BONUS = 1000;
+    public static final double MCTS_REWARD_SCALE = 100;
+    public static final double MCTS_EXPLORATION = 1.4;
+    // chance that the walk at the end of a rollout turns towards the closest item rather than a random way
+    public static final double MCTS_GREEDY_WALK = 0.8;
+    // start with -Dpacman.bot=mcts to let the bot play instead of the keyboard
+    public static final String BOT_PROPERTY = "pacman.bot";
 
     // describes the constants in relation to the labels
     public static final String SCORE_LABEL_TEXT = "Score: ";
     public static final String LIVES_LABEL_TEXT = "Lives: ";
     public static final String GAME_OVER_LABEL_TEXT = "Game Over";
     public static final String GAME_WON_LABEL_TEXT = "Winner!";
+    public static final String GAME_OVER_LABEL_STYLE =
+            "-fx-font: italic bold 50px arial, serif;-fx-text-alignment: center;-fx-text-fill: rgba(255,251,0,0.87);";
     public static final int DOT_SCORE = 10;
     public static final int ENERGIZER_SCORE = 100;
     public static final int GHOST_SCORE = 200;
@@ -1,36 +1,29 @@
 package pacman;
 
-import javafx.scene.layout.Pane;
-import javafx.scene.shape.Circle;
-
 /**
- * Represents a dot item as a circle which implements the collideable interface with collision and score.
+ * Represents a dot item which implements the collideable interface with collision and score. The dots themselves
+ * are bits in the game's dots bitboard, so a game needs a single Dot that collides for whichever dot pacman is on.
  */
 public class Dot implements Collideable {
 
-    private Circle circle;
-    private Pane gamePane;
     private Game game;
 
     /*
-    Dots is associated with location and game class, in order to set its location when instantiated in the game class
-    and add to the dot count calculated in the game class.
+    Dots is associated with the game class, in order to remove the eaten dot from the game's dots.
      */
-    public Dot(double xLoc, double yLoc, Pane gamePane, Game game) {
-        this.gamePane = gamePane;
+    public Dot(Game game) {
         this.game = game;
-        this.circle = new Circle(xLoc, yLoc, Constants.DOT_RADIUS, Constants.DOT_COLOR);
-        this.gamePane.getChildren().add(this.circle);
     }
 
     /*
-    Method declared in the collideable interface defined in this class to make the dot disappear, add to count
-    of dots to determine when the game has ended, and return a unique score (10).
+    Method declared in the collideable interface defined in this class to clear the bit of the dot on pacman's
+    square, which determines when the game has ended, and publish the event that earns its unique score (10).
      */
     @Override
     public void collide() {
-        this.gamePane.getChildren().remove(this.circle);
-        // 1 adds to count of dots to determine when the players wins, dot score increases the score.
-        this.game.updateScore(1, Constants.DOT_SCORE);
+        Pacman pacman = this.game.getPacman();
+        int square = this.game.getBoard().squareIndex(pacman.getRow(), pacman.getCol());
+        this.game.removeItem(square);
+        this.game.getEvents().publish(GameEvent.DOT_EATEN, square, this.game.getTick());
     }
 }
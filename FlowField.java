@@ -0,0 +1,93 @@
+package pacman;
+
+import java.util.Arrays;
+
+/**
+ * Distance from every square of a board to one target square, found with a single breadth-first search outwards
+ * from the target. Any number of ghosts heading for the same target read their next move from the same field: a
+ * ghost steps to the allowed neighbour (not a wall and not back the way it came) closest to the target, so the
+ * search is paid once per target instead of once per ghost.
+ *
+ * Walls never change during a game, so a field stays valid for as long as its target does not move. The game keeps a
+ * few fields and only recomputes one when a ghost asks for a target none of them holds (see Game.getFlowField).
+ */
+public class FlowField {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private Board board;
+    private int target = -1;
+    private int[] distance;
+    private int[] queue;
+    private int lastUsed; // tick of the last lookup, so that the game can replace the least recently used field
+
+    public FlowField(Board board) {
+        this.board = board;
+        this.distance = new int[board.getSquares()];
+        this.queue = new int[board.getSquares()];
+    }
+
+    /*
+    Fills the field with the distance of every square to the given packed square. Walls and squares that cannot
+    reach the target are left UNREACHABLE.
+     */
+    public void compute(int target) {
+        this.target = target;
+        Arrays.fill(this.distance, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        this.distance[target] = 0;
+        this.queue[tail++] = target;
+        while (head < tail) {
+            int square = this.queue[head++];
+            for (Direction direction : DIRECTIONS) {
+                int neighbour = this.board.neighbour(square, direction);
+                if (neighbour >= 0 && this.distance[neighbour] == UNREACHABLE) {
+                    this.distance[neighbour] = this.distance[square] + 1;
+                    this.queue[tail++] = neighbour;
+                }
+            }
+        }
+    }
+
+    /*
+    Returns the direction of the allowed neighbour closest to the target, taking the first in the order of the
+    Direction enum on a tie. Returns null when no allowed neighbour can reach the target.
+     */
+    public Direction nextDirection(int row, int col, Direction currDirection) {
+        int square = this.board.squareIndex(row, col);
+        int best = UNREACHABLE;
+        Direction closest = null;
+        for (Direction direction : DIRECTIONS) {
+            int neighbour = this.board.neighbour(square, direction);
+            if (neighbour >= 0 && currDirection != direction.opposite() && this.distance[neighbour] < best) {
+                best = this.distance[neighbour];
+                closest = direction;
+            }
+        }
+        return closest;
+    }
+
+    /*
+    Returns the distance of a packed square to the target, or UNREACHABLE.
+     */
+    public int getDistance(int square) {
+        return this.distance[square];
+    }
+
+    /*
+    Returns the packed target square, or -1 before the field is first computed.
+     */
+    public int getTarget() {
+        return this.target;
+    }
+
+    public int getLastUsed() {
+        return this.lastUsed;
+    }
+
+    public void setLastUsed(int lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+}
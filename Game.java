@@ -1,306 +1,592 @@
 package pacman;
 
-import cs15.fnl.pacmanSupport.CS15SquareType;
-import javafx.geometry.Pos;
-import javafx.scene.input.KeyCode;
-import javafx.scene.input.KeyEvent;
-import javafx.scene.layout.Pane;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.event.ActionEvent;
-import javafx.animation.Animation;
-import javafx.util.Duration;
-import javafx.scene.control.Label;
-import javafx.scene.paint.Color;
+import java.util.ArrayDeque;
 import java.util.Queue;
-import java.util.LinkedList;
-import javafx.scene.layout.VBox;
-import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Handles the high-level logic of the game, by running a timeline that updates
- * the pacman, ghost pen, and status of the game at each tick of the timeline and by updating the
- * pacman direction of key input.
+ * Handles the high-level logic of the game, by updating the pacman, ghost pen, and status of the game at each
+ * tick and by updating the pacman direction on input.
+ *
+ * The game holds its state as plain Java objects and knows nothing about JavaFX: positions are rows and columns and
+ * walls come from the board. The remaining dots and energizers are kept as bitboards, so checking for a win or copying
+ * the state of the maze costs a few word operations. What pacman can collide with on a square is the item in the
+ * bitboards, if any, and the ghosts registered in the occupancy index. A tick is run by calling updateGame, either from
+ * the GameRenderer's timeline or directly in a loop when running headless. A tick lasts the tick duration of the
+ * settings: the actors cross a square over getTicksPerSquare ticks and move on the last of them, while the pen and
+ * the game modes count their seconds on every tick, so a shorter tick plays the same game at the same speed in finer
+ * steps. Between ticks, snapshot and restore capture and put back the whole state, so a game can be rewound or
+ * searched ahead from.
  */
 public class Game {
 
-    private Pane gamePane;
-    private Timeline timeline;
-    private MazeSquare[][] maze;
+    // inky, clyde, pinky and blinky, in the order the ghosts take their roles
+    private static final int GHOST_ROLES = 4;
+    private static final int INKY = 0;
+    private static final int CLYDE = 1;
+    private static final int PINKY = 2;
+    private static final int BLINKY = 3;
+
+    private Board board;
+    private GameSettings settings;
+    private OccupancyIndex occupancy;
+    private GameEventBus events;
+    private CollisionSweep sweep; // null unless collisions are swept
     private Pacman pacman;
-    private Ghost inky;
-    private Ghost blinky;
-    private Ghost clyde;
-    private Ghost pinky;
+    // dots and energizers all behave the same, so one of each collides for every item of its kind
+    private Dot dot;
+    private Energizer energizer;
+    /*
+    Ghosts in a fixed order. Ghost i plays the role i % GHOST_ROLES of inky, clyde, pinky and blinky, which decides
+    its starting square and its targets, so a game with more than four ghosts has several ghosts of each role.
+     */
+    private Ghost[] ghosts;
+    // targets of the four roles for the current tick, filled once and shared by every ghost of a role
+    private int[] targetRows;
+    private int[] targetCols;
+    private FlowField[] flowFields; // created on the first lookup in flow field pathing mode
+    private int flowFieldUpdates;
     // Keeps track of direction pacman currently moves in, which is passed into method when a key is pressed
     private Direction direction;
     private int score;
-    private Label scoreLabel;
-    private Label livesLabel;
     // Multiple counters to account for the pen, game modes, because they operate independently of another.
     private double counterPen;
     private int countLives;
     private int counter;
     private int countFright;
     private Queue<Ghost> ghostPen;
-    private int dotCount;
+    private Bitboard dots;
+    private Bitboard energizers;
+    private GameStatus status;
+    private TickMetrics metrics; // null unless the phases of each tick are being measured
+    // the root of the game's randomness, which the ghosts split their generators off, so that a seed and the inputs
+    // determine the whole game
+    private long seed;
+    private GameRandom random;
+    private int tick;
+    // ticks are settings.getTickDuration() seconds long, fixed when the game is created; the actors cross a square
+    // over ticksPerSquare of them and move on the last
+    private double tickDuration;
+    private int ticksPerSquare;
+    private int ticksSinceMove;
+    private InputRecorder recorder; // null unless the inputs are being recorded
+    private ForkJoinPool ghostPool; // null unless ghosts decide in parallel
+    private boolean decidingInParallel; // true while ghosts decide on the pool, when flow fields must not change
     // Boolean keeps track of the status of game when frightened mode is on or off.
     public boolean frightMode;
 
     /*
-     * Sets up the game by registering the KeyEvent handler on the gamePane, initialising conditions for the whole
-     * game (lives, score), instantiating the 2D array that represents the maze, and calling the timeline.
+     * Sets up the game on a given board with the default settings and a random seed.
+     */
+    public Game(Board board) {
+        this(board, new GameSettings());
+    }
+
+    /*
+     * Sets up the game on a given board with the given settings and a random seed.
      */
-    public Game(Pane gamePane, Label score, Label lives) {
-        this.gamePane = gamePane;
-        this.scoreLabel = score;
-        this.livesLabel = lives;
+    public Game(Board board, GameSettings settings) {
+        this(board, settings, ThreadLocalRandom.current().nextLong());
+    }
+
+    /*
+     * Sets up the game on a given board by initialising conditions for the whole game (lives, score, status)
+     * and the index of the squares the ghosts are in. The settings decide how long each game mode lasts,
+     * and the seed decides the random moves of frightened ghosts, through the generator each ghost splits off the
+     * game's when it is created.
+     */
+    public Game(Board board, GameSettings settings, long seed) {
+        this.board = board;
+        this.settings = settings;
+        this.seed = seed;
+        this.tickDuration = settings.getTickDuration();
+        this.ticksPerSquare = settings.getTicksPerSquare();
+        this.random = settings.getRandomMode() == RandomMode.SHARED ? new SharedRandom(seed)
+                : new SplitMixRandom(seed);
         this.countLives = 3;
         this.score = 0;
-        this.maze = new MazeSquare[Constants.MAZE_DIMENSION][Constants.MAZE_DIMENSION];
-        this.PacmanTimeline();
+        this.status = GameStatus.PLAYING;
+        this.dots = board.getDots().copy();
+        this.energizers = board.getEnergizers().copy();
+        this.ghosts = new Ghost[settings.getGhostCount()];
+        this.targetRows = new int[GHOST_ROLES];
+        this.targetCols = new int[GHOST_ROLES];
+        this.occupancy = new OccupancyIndex(this.ghosts.length);
+        // a tick publishes at most one event per ghost and two for items
+        this.events = new GameEventBus(this.ghosts.length + 2);
+        this.events.subscribe(this::applyEvent);
+        if (settings.getCollisionMode() == CollisionMode.SWEPT) {
+            this.sweep = new CollisionSweep(this, this.ghosts.length);
+        }
+        // never holds more than every ghost, so adding to it does not allocate
+        this.ghostPen = new ArrayDeque<>(this.ghosts.length);
+        this.setUpMap();
         this.start();
     }
 
     /*
     Initialises game state for player to continue playing a new round whilst keeping track of score and lives.
-    Resets the ghostpen, the counters, moves ghosts to starting positions, reset fright mode, and play the timeline.
+    Resets the ghostpen, the counters, moves pacman and ghosts to starting positions and resets fright mode.
+    The maze, the remaining dots and the actors themselves are kept from round to round.
      */
     private void start() {
-        this.ghostPen = new LinkedList<>();
+        this.ghostPen.clear();
         this.counterPen = 0;
         this.countFright = 0;
-        this.dotCount = 0;
         this.counter = 0;
         this.frightMode = false;
-        this.setUpMap();
+        this.placeActors();
         // set initial direction of pacman towards an invalid square, so pacman is stationary when game starts.
         this.direction = Direction.UP;
-        this.gamePane.setFocusTraversable(true);
-        this.timeline.play();
     }
 
     /*
-    Handles resetting the game after pacman loses a life by calling the start method and updating remaining lives.
+    Handles resetting the game after pacman is caught by taking the ghosts out of the squares they are in and
+    calling the start method. The life is taken when the PACMAN_CAUGHT event is drained at the end of the tick.
      */
     public void reset() {
-        this.countLives -= 1;
+        for (int i = 0; i < this.ghosts.length; i++) {
+            this.occupancy.remove(i);
+        }
         this.start();
-        this.timeline.play();
-    }
-
-    /*
-    Registers key event handlers and sets up timeline, and updates the state of the game by calling update game
-    method in each timeline cycle that is set to play indefinitely.
-     */
-    private void PacmanTimeline() {
-        this.gamePane.setOnKeyPressed(this::handleKeyPress);
-        KeyFrame kf = new KeyFrame(Duration.seconds(Constants.TIMELINE_DURATION),
-                (ActionEvent event) -> this.updateGame());
-        this.timeline = new Timeline(kf);
-        this.timeline.setCycleCount(Animation.INDEFINITE);
-        this.timeline.play();
     }
 
     /*
      * Updates the state of the game, by releasing ghosts from pen, moving pacman, updating the score, checking for
-     * collisions before and after we tell the ghosts to move (accounting for head on edge cases), and updating the lives
-     * when necessary.
+     * collisions before and after we tell the ghosts to move (accounting for head on edge cases), and updating the
+     * lives when necessary. The events the collisions published are drained just before the lives are checked, which
+     * settles the score and the lives for the tick. With swept collisions, the movement of every actor over the tick is
+     * instead checked once after everyone has moved. When ticks are shorter than a square, the pen and the game modes
+     * count every tick but the actors only move, and so collide, on the last tick of each square. Does nothing once
+     * the game is won or lost. When metrics are attached, each phase is timed.
      */
-    private void updateGame() {
+    public void updateGame() {
+        if (this.status != GameStatus.PLAYING) {
+            return;
+        }
+        if (this.metrics != null) {
+            this.metrics.startTick();
+        }
         this.initialisePen();
+        this.endPhase(TickPhase.INITIALISE_PEN);
+        this.ticksSinceMove++;
+        if (this.ticksSinceMove < this.ticksPerSquare) {
+            this.switchGameMode(false);
+            this.endPhase(TickPhase.GHOSTS);
+            this.tick++;
+            if (this.metrics != null) {
+                this.metrics.endTick();
+            }
+            return;
+        }
+        this.ticksSinceMove = 0;
+        if (this.sweep != null) {
+            this.sweep.begin(this.pacman, this.ghosts);
+        }
         this.pacman.movePacman(this.direction);
-        this.collide();
-        this.switchGameMode();
-        this.collide();
+        this.endPhase(TickPhase.MOVE_PACMAN);
+        if (this.sweep == null) {
+            this.collide();
+            this.endPhase(TickPhase.COLLIDE);
+        }
+        this.switchGameMode(true);
+        this.endPhase(TickPhase.GHOSTS);
+        if (this.sweep == null) {
+            this.collide();
+        } else {
+            this.sweep.resolve(this.pacman, this.ghosts);
+        }
+        this.endPhase(TickPhase.COLLIDE);
+        this.events.drain();
         this.updateLives();
+        this.endPhase(TickPhase.UPDATE_LIVES);
+        this.tick++;
+        if (this.metrics != null) {
+            this.metrics.endTick();
+        }
     }
 
     /*
-    Helper method to set up the maze as a 2D array of mazequares graphically and logically.
+    Helper method that records the end of a phase when metrics are attached.
      */
-    private void setUpMaze() {
-        for (int row = 0; row < Constants.MAZE_DIMENSION; row++) {
-            for (int col = 0; col < Constants.MAZE_DIMENSION; col++) {
-                this.maze[row][col] = new MazeSquare(this.gamePane);
-                this.maze[row][col].setRow(row * Constants.SQ_WIDTH);
-                this.maze[row][col].setCol(col * Constants.SQ_WIDTH);
-            }
+    private void endPhase(TickPhase phase) {
+        if (this.metrics != null) {
+            this.metrics.endPhase(phase);
         }
     }
 
     /*
-    Configures the graphical and logical setup of the game using the support map to determine the locations to
-    place all the elements of the game (wall, paths, dots, energizers, ghosts' and pacmans' starting locations).
+    Attaches metrics that time every phase of every following tick, or detaches them when passed null.
+     */
+    public void setMetrics(TickMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /*
+    Configures the logical setup of the game once, creating pacman, the ghosts and the collideables for the items.
+    The items themselves are the game's copies of the board's bitboards, and starting positions are set in
+    placeActors.
      */
     private void setUpMap() {
-        this.setUpMaze();
-        // store support map as local variable
-        CS15SquareType[][] supportMap = cs15.fnl.pacmanSupport.CS15SupportMap.getSupportMap();
-        for (int row = 0; row < Constants.MAZE_DIMENSION; row++) {
-            for (int col = 0; col < Constants.MAZE_DIMENSION; col++) {
-                // enum given by support map determines what type of object to instantiate at given row and col
-                CS15SquareType type = supportMap[row][col];
-                switch (type) {
-                    case WALL:
-                        this.maze[row][col].setColor(Constants.WALL_COLOR);
-                        break;
-                    case DOT:
-                        // adds object graphically
-                        Dot dot = new Dot((col * Constants.SQ_WIDTH) + Constants.SQ_OFFSET,
-                                (row * Constants.SQ_WIDTH) + Constants.SQ_OFFSET, this.gamePane, this);
-                        this.maze[row][col].addCollideable(dot); // adds object logically to smart square
-                        break;
-                    case ENERGIZER:
-                        Energizer energizer = new Energizer((col * Constants.SQ_WIDTH) + Constants.SQ_OFFSET,
-                                (row * Constants.SQ_WIDTH) + Constants.SQ_OFFSET, this.gamePane, this);
-                        this.maze[row][col].addCollideable(energizer);
-                        break;
-                    case PACMAN_START_LOCATION:
-                        this.pacman = new Pacman(this.gamePane, this);
-                        this.pacman.setPacmanLoc((col * Constants.SQ_WIDTH) + Constants.SQ_OFFSET,
-                                (row * Constants.SQ_WIDTH) + Constants.SQ_OFFSET);
-                        break;
-                    case GHOST_START_LOCATION:
-                        /*
-                        Instantiate 4 instances of ghost to create the unique ghosts, adding them to ghostPen queue to
-                        initialise the ghostPen.
-                         */
-                        this.inky = new Ghost(this.gamePane, Color.ORANGE, this);
-                        this.inky.setGhostLoc((col * Constants.SQ_WIDTH),
-                                (row * Constants.SQ_WIDTH));
-                        this.maze[row][col].addCollideable(this.inky);
-                        this.ghostPen.add(this.inky);
-
-                        this.clyde = new Ghost(this.gamePane, Color.RED, this);
-                        this.clyde.setGhostLoc((col * Constants.SQ_WIDTH),
-                                (row * Constants.SQ_WIDTH) - Constants.CLYDE_OFFSET);
-                        this.maze[row][col].addCollideable(this.clyde);
-
-                        this.pinky = new Ghost(this.gamePane, Color.PINK,this);
-                        this.pinky.setGhostLoc((col * Constants.SQ_WIDTH) - Constants.PINKY_OFFSET,
-                                (row * Constants.SQ_WIDTH));
-                        this.maze[row][col].addCollideable(this.pinky);
-                        this.ghostPen.add(this.pinky);
-
-                        this.blinky = new Ghost(this.gamePane, Color.CYAN,this);
-                        this.blinky.setGhostLoc((col * Constants.SQ_WIDTH),
-                                (row * Constants.SQ_WIDTH) + Constants.SQ_WIDTH);
-                        this.maze[row][col].addCollideable(this.blinky);
-                        this.ghostPen.add(this.blinky);
-                        break;
+        this.pacman = new Pacman(this);
+        // Instantiate the configured number of ghosts, which take the four roles in turn.
+        for (int i = 0; i < this.ghosts.length; i++) {
+            this.ghosts[i] = new Ghost(this, i);
+        }
+        this.dot = new Dot(this);
+        this.energizer = new Energizer(this);
+    }
+
+    /*
+    Moves pacman and the ghosts to their starting squares at the start of every round, adding the ghosts to the
+    ghostPen queue to initialise the ghostPen. Each ghost starts on its role's square: clydes start outside the pen
+    and every other ghost joins the pen queue in order. Each ghost is registered in the square it starts in.
+     */
+    private void placeActors() {
+        this.pacman.setPacmanLoc(this.board.getPacmanStartRow(), this.board.getPacmanStartCol());
+
+        int row = this.board.getGhostStartRow();
+        int col = this.board.getGhostStartCol();
+        for (int i = 0; i < this.ghosts.length; i++) {
+            Ghost ghost = this.ghosts[i];
+            switch (i % GHOST_ROLES) {
+                case INKY:
+                    ghost.respawn(row, col);
+                    this.ghostPen.add(ghost);
+                    break;
+                case CLYDE:
+                    ghost.respawn(row - Constants.CLYDE_OFFSET, col);
+                    break;
+                case PINKY:
+                    ghost.respawn(row, col - Constants.PINKY_OFFSET);
+                    this.ghostPen.add(ghost);
+                    break;
+                default:
+                    ghost.respawn(row + 1, col);
+                    this.ghostPen.add(ghost);
+            }
+            this.occupancy.add(i, this.board.squareIndex(ghost.getRow(), ghost.getCol()));
+        }
+    }
+
+    /*
+    Captures the whole state of the game between ticks into an immutable snapshot: the actors, the pen queue, the
+    mode counters, the items, score and lives, and the state of the random number generators. No renderer state is
+    involved, so taking a snapshot costs a few small array copies.
+     */
+    public GameSnapshot snapshot() {
+        int[] ghosts = new int[this.ghosts.length];
+        long[] ghostRandom = new long[this.ghosts.length];
+        int registered = 0;
+        for (int i = 0; i < this.ghosts.length; i++) {
+            Ghost ghost = this.ghosts[i];
+            ghosts[i] = GameSnapshot.pack(this.board.squareIndex(ghost.getRow(), ghost.getCol()),
+                    ghost.getCurrDirection());
+            ghostRandom[i] = ghost.getRandom().getState();
+            if (this.occupancy.squareOf(i) >= 0) {
+                registered++;
+            }
+        }
+        // walk each square's list from its first ghost, so that restoring keeps the order within every square
+        int[] occupancy = new int[registered];
+        int next = 0;
+        for (int i = 0; i < this.ghosts.length; i++) {
+            int square = this.occupancy.squareOf(i);
+            if (square >= 0 && this.occupancy.first(square) == i) {
+                for (int ghost = i; ghost >= 0; ghost = this.occupancy.next(ghost)) {
+                    occupancy[next++] = ghost;
                 }
             }
         }
-        this.toFront(); // calls method to set relevant objects to front after setting up background elements
+        int[] pen = new int[this.ghostPen.size()];
+        next = 0;
+        for (Ghost ghost : this.ghostPen) {
+            pen[next++] = ghost.getSlot();
+        }
+        int pacman = GameSnapshot.pack(this.board.squareIndex(this.pacman.getRow(), this.pacman.getCol()),
+                this.direction);
+        return new GameSnapshot(this.board, this.settings.getRandomMode(), this.ticksPerSquare, this.tick,
+                this.ticksSinceMove, pacman, ghosts, pen, occupancy, this.counter, this.countFright, this.counterPen,
+                this.frightMode, this.score, this.countLives, this.status, this.random.getState(), ghostRandom,
+                this.dots.copy(), this.energizers.copy(),
+                this.recorder == null ? 0 : this.recorder.getId(),
+                this.recorder == null ? 0 : this.recorder.getInputCount());
     }
 
     /*
-    Helper method to set all the moving objects graphically in front of the secondary elements (dots, energizers).
+    Puts the game back in the state of a snapshot taken from a game on the same board with the same number of
+    ghosts, the same random mode and the same ticks per square, after which it plays on exactly as the game did from
+    that tick, and throws IllegalArgumentException for a snapshot of any other game. A recorder attached to the game
+    is cut back to the inputs it had recorded when the snapshot was taken and keeps logging from there, so its log
+    replays the game as it was finally played. Throws IllegalStateException when a recorder is attached and the
+    snapshot was not taken while it was recording, since its log could not lead to the snapshot's state.
      */
-    private void toFront() {
-        this.pacman.bringToFront();
-        this.inky.bringToFront();
-        this.blinky.bringToFront();
-        this.pinky.bringToFront();
-        this.clyde.bringToFront();
+    public void restore(GameSnapshot snapshot) {
+        if (!snapshot.isOf(this.board)) {
+            throw new IllegalArgumentException("Snapshot was taken from a game on a " + snapshot.getRows() + "x"
+                    + snapshot.getCols() + " board that is not this game's " + this.board.getRows() + "x"
+                    + this.board.getCols() + " board");
+        }
+        if (snapshot.getRandomMode() != this.settings.getRandomMode()) {
+            throw new IllegalArgumentException("Snapshot was taken from a game with random mode "
+                    + snapshot.getRandomMode() + ", this game has " + this.settings.getRandomMode());
+        }
+        if (snapshot.getTicksPerSquare() != this.ticksPerSquare) {
+            throw new IllegalArgumentException("Snapshot was taken from a game with " + snapshot.getTicksPerSquare()
+                    + " ticks per square, this game has " + this.ticksPerSquare);
+        }
+        if (snapshot.getGhostCount() != this.ghosts.length) {
+            throw new IllegalArgumentException("Snapshot was taken from a game with "
+                    + snapshot.getGhostCount() + " ghosts, this game has " + this.ghosts.length);
+        }
+        if (this.recorder != null) {
+            if (snapshot.getRecording() != this.recorder.getId()) {
+                throw new IllegalStateException("Snapshot of tick " + snapshot.getTick()
+                        + " was not taken while the attached recorder was recording");
+            }
+            this.recorder.rewind(snapshot.getRecordedInputs());
+        }
+        int cols = this.board.getCols();
+        int pacman = snapshot.getPacman();
+        this.pacman.setPacmanLoc(GameSnapshot.square(pacman) / cols, GameSnapshot.square(pacman) % cols);
+        this.direction = GameSnapshot.direction(pacman);
+        for (int i = 0; i < this.ghosts.length; i++) {
+            int ghost = snapshot.getGhost(i);
+            this.ghosts[i].restore(GameSnapshot.square(ghost) / cols, GameSnapshot.square(ghost) % cols,
+                    GameSnapshot.direction(ghost));
+            this.ghosts[i].getRandom().setState(snapshot.getGhostRandom(i));
+            this.occupancy.remove(i);
+        }
+        for (int i = 0; i < snapshot.getOccupancySize(); i++) {
+            Ghost ghost = this.ghosts[snapshot.getOccupancyGhost(i)];
+            this.occupancy.add(ghost.getSlot(), this.board.squareIndex(ghost.getRow(), ghost.getCol()));
+        }
+        this.ghostPen.clear();
+        for (int i = 0; i < snapshot.getPenSize(); i++) {
+            this.ghostPen.add(this.ghosts[snapshot.getPenGhost(i)]);
+        }
+        this.counter = snapshot.getCounter();
+        this.countFright = snapshot.getCountFright();
+        this.counterPen = snapshot.getCounterPen();
+        this.frightMode = snapshot.getFrightMode();
+        this.score = snapshot.getScore();
+        this.countLives = snapshot.getLives();
+        this.status = snapshot.getStatus();
+        this.tick = snapshot.getTick();
+        this.ticksSinceMove = snapshot.getTicksSinceMove();
+        this.random.setState(snapshot.getRandom());
+        this.dots.copyFrom(snapshot.getDots());
+        this.energizers.copyFrom(snapshot.getEnergizers());
     }
 
     /*
-     * Handles key input by changing direction of pacman on up, down, left, and right arrow keys.
-     * Tracks direction currently moving in, so continues moving if direction from key input is invalid.
+     * Handles input by changing direction of pacman to the requested direction.
+     * Tracks direction currently moving in, so continues moving if direction from input is invalid.
+     * Every input is passed to the recorder, if there is one, together with the number of the next tick.
      */
-    private void handleKeyPress(KeyEvent e) {
-        KeyCode keyPressed = e.getCode();
-        switch (keyPressed) {
-            case LEFT:
-                this.direction = this.pacman.setMoveDirection(Direction.LEFT, this.direction);
-                break;
-            case RIGHT:
-                this.direction = this.pacman.setMoveDirection(Direction.RIGHT, this.direction);
-                break;
-            case DOWN:
-                this.direction = this.pacman.setMoveDirection(Direction.DOWN, this.direction);
-                break;
-            case UP:
-                this.direction = this.pacman.setMoveDirection(Direction.UP, this.direction);
-                break;
+    public void handleInput(Direction requested) {
+        if (this.recorder != null) {
+            this.recorder.record(this.tick, requested);
         }
+        this.direction = this.pacman.setMoveDirection(requested, this.direction);
     }
 
     /*
-    Method called in timeline to continuously check for any pacman collisions with collideable objects.
-    When Pacman enters a square, iterate over that square's arraylist and tell each element to perform its collision action.
+    Method called every tick to continuously check for any pacman collisions with collideable objects.
+    When Pacman enters a square, the first collideable in it performs its collision action: the item if there is
+    one, otherwise the ghost that entered the square first. The square is then emptied, so any other ghost in it
+    stays out of collisions until it moves again.
      */
-    private void collide() {
-        if (this.pacman.getCol() <= Constants.RIGHT_EXTREMA) {
-            MazeSquare currSquare = this.maze[this.pacman.getRow()][this.pacman.getCol()]; // gets square at current location
-            ArrayList<Collideable> arrayList = currSquare.getCollideables();
-            for (int i = 0; i < arrayList.size(); i++) {
-                arrayList.get(i).collide();
-                currSquare.clearArray();
+    void collide() {
+        if (this.pacman.getCol() < this.board.getCols()) {
+            int square = this.board.squareIndex(this.pacman.getRow(), this.pacman.getCol()); // current location
+            Collideable first = this.firstCollideable(square);
+            if (first != null) {
+                first.collide();
+                this.occupancy.clear(square);
             }
         }
     }
 
+    /*
+    Returns the first collideable in a packed square, or null when the square is empty.
+     */
+    private Collideable firstCollideable(int square) {
+        Collideable item = this.itemAt(square);
+        if (item != null) {
+            return item;
+        }
+        int ghost = this.occupancy.first(square);
+        return ghost < 0 ? null : this.ghosts[ghost];
+    }
+
+    /*
+    Returns the collideable for the dot or energizer in a packed square, or null when the square holds no item.
+     */
+    Collideable itemAt(int square) {
+        if (this.dots.get(square)) {
+            return this.dot;
+        }
+        if (this.energizers.get(square)) {
+            return this.energizer;
+        }
+        return null;
+    }
+
     /*
     Sets the target location for ghost behaviour which must change depending on current game mode, by
-    calling direction generation on each instance of ghost and passing in pacman's current location.
-    Only BFS requires a target, so in frightened mode a null target is passed whilst still calling the ghosts to move.
+    calling direction generation on each instance of ghost and passing in its role's target.
+    Only BFS requires a target, so in frightened mode the target is ignored whilst still calling the ghosts to move.
+    Targets are passed as a row and column so that no coordinate objects are created every tick.
+    With a ghost pool, chase and scatter decisions are made in parallel and the moves applied afterwards in the
+    order of the ghosts, which gives exactly the same result as moving the ghosts one by one.
      */
     private void setGhostTarget(GameMode mode) {
         int row = this.pacman.getRow();
         int col = this.pacman.getCol();
         switch(mode) {
             case CHASE:
-                this.inky.generateDirection(new BoardCoordinate(row - Constants.INKY_ROW, col, false));
-                this.clyde.generateDirection(new BoardCoordinate(row, col, false));
-                this.pinky.generateDirection(new BoardCoordinate(row + 1, col - Constants.PINKY_COL, false));
-                this.blinky.generateDirection(new BoardCoordinate(row, col + Constants.BLINKY_COL, false));
+                this.setRoleTarget(INKY, row - Constants.INKY_ROW, col);
+                this.setRoleTarget(CLYDE, row, col);
+                this.setRoleTarget(PINKY, row + 1, col - Constants.PINKY_COL);
+                this.setRoleTarget(BLINKY, row, col + Constants.BLINKY_COL);
                 break;
             case SCATTER:
-                this.inky.generateDirection(new BoardCoordinate(1, 1, false));
-                this.clyde.generateDirection(new BoardCoordinate(Constants.RIGHT_EXTREMA, 1, false));
-                this.pinky.generateDirection(new BoardCoordinate(1, Constants.RIGHT_EXTREMA, false));
-                this.blinky.generateDirection(new BoardCoordinate(Constants.RIGHT_EXTREMA, Constants.RIGHT_EXTREMA, false));
+                this.setRoleTarget(INKY, 1, 1);
+                this.setRoleTarget(CLYDE, this.board.getRows() - 1, 1);
+                this.setRoleTarget(PINKY, 1, this.board.getCols() - 1);
+                this.setRoleTarget(BLINKY, this.board.getRows() - 1, this.board.getCols() - 1);
                 break;
             case FRIGHTENED:
-                this.inky.generateDirection(null);
-                this.clyde.generateDirection(null);
-                this.pinky.generateDirection(null);
-                this.blinky.generateDirection(null);
+                // frightened ghosts move randomly, so pacman's location is passed only as a placeholder target
+                for (int role = 0; role < GHOST_ROLES; role++) {
+                    this.setRoleTarget(role, row, col);
+                }
+        }
+        if (this.ghostPool != null
+                && (mode != GameMode.FRIGHTENED || this.settings.getRandomMode() == RandomMode.PER_GHOST)) {
+            this.moveGhostsInParallel();
+            return;
+        }
+        for (int i = 0; i < this.ghosts.length; i++) {
+            this.ghosts[i].generateDirection(this.targetRows[i % GHOST_ROLES], this.targetCols[i % GHOST_ROLES]);
         }
     }
 
     /*
-    Handles switching between game modes by incrementing a counter with timeline and tracking time
+    Two-phase ghost move. Any flow fields the ghosts need are computed first, then every ghost decides on the pool
+    while nothing shared changes, and finally the moves are committed one ghost at a time in a fixed order.
+    Frightened ghosts only get here when each has its own generator, since with a shared one their random moves depend
+    on the order of the draws.
+     */
+    private void moveGhostsInParallel() {
+        if (this.settings.getPathingMode() == PathingMode.FLOW_FIELD) {
+            int roles = Math.min(GHOST_ROLES, this.ghosts.length);
+            for (int role = 0; role < roles; role++) {
+                this.getFlowField(this.targetRows[role], this.targetCols[role]);
+            }
+        }
+        this.decidingInParallel = true;
+        try {
+            this.ghostPool.invoke(new GhostDecisions(0, this.ghosts.length));
+        } finally {
+            this.decidingInParallel = false;
+        }
+        for (Ghost ghost : this.ghosts) {
+            ghost.commitMove();
+        }
+    }
+
+    /**
+     * Lets the ghosts in a range decide, splitting the range in halves on the pool until it holds few enough ghosts.
+     */
+    private class GhostDecisions extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private int from;
+        private int to;
+
+        GhostDecisions(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= Constants.GHOSTS_PER_TASK) {
+                for (int i = this.from; i < this.to; i++) {
+                    Game.this.ghosts[i].decide(Game.this.targetRows[i % GHOST_ROLES],
+                            Game.this.targetCols[i % GHOST_ROLES]);
+                }
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new GhostDecisions(this.from, middle), new GhostDecisions(middle, this.to));
+        }
+    }
+
+    /*
+    Makes the ghosts of every following tick decide in parallel on the given pool, or one by one when passed null.
+    Both ways play exactly the same game.
+     */
+    public void setGhostPool(ForkJoinPool ghostPool) {
+        this.ghostPool = ghostPool;
+    }
+
+    /*
+    Helper method that stores the target of one ghost role for the current tick.
+     */
+    private void setRoleTarget(int role, int row, int col) {
+        this.targetRows[role] = row;
+        this.targetCols[role] = col;
+    }
+
+    /*
+    Handles switching between game modes by incrementing a counter every tick and tracking time
     when game must switch mode: 10 seconds chase, 7 seconds scatter repeatedly. First checks whether game
     is in frightened mode and if so, sets off counter for frightened mode. When frightened mode is over,
-    set the fright mode boolean to false.
+    set the fright mode boolean to false. The limits are in seconds and counted in ticks; the ghosts are only told
+    to move on the ticks the actors move.
      */
-    private void switchGameMode() {
+    private void switchGameMode(boolean move) {
         if (!this.frightMode) { // determine whether game is in frightened mode
-            if (this.counter < Constants.CHASE_LIMIT) {
-                this.setGhostTarget(GameMode.CHASE);
+            if (this.counter < this.inTicks(this.settings.getChaseLimit())) {
+                if (move) {
+                    this.setGhostTarget(GameMode.CHASE);
+                }
                 this.counter ++;
             }
-            if (this.counter >= Constants.CHASE_LIMIT) {
-                this.setGhostTarget(GameMode.SCATTER);
+            if (this.counter >= this.inTicks(this.settings.getChaseLimit())) {
+                if (move) {
+                    this.setGhostTarget(GameMode.SCATTER);
+                }
                 this.counter ++;
             }
-            if (this.counter >= Constants.SCATTER_LIMIT) {
+            if (this.counter >= this.inTicks(this.settings.getScatterLimit())) {
                 this.counter = 0;}
         }
         else {
             this.countFright ++;
-            this.setGhostTarget(GameMode.FRIGHTENED);
-            if (this.countFright >= Constants.FRIGHTENED_LIMIT) {
+            if (move) {
+                this.setGhostTarget(GameMode.FRIGHTENED);
+            }
+            if (this.countFright >= this.inTicks(this.settings.getFrightenedLimit())) {
                 this.setFrightMode(false); // set frightened mode to false after 7 seconds
                 this.countFright = 0; // reset counter
             }
         }
     }
 
+    /*
+    Helper method that returns a time in seconds as a number of the game's ticks.
+     */
+    private double inTicks(double seconds) {
+        return GameSettings.inTicks(seconds, this.tickDuration);
+    }
+
     /*
     Setter method that assigns truth value to frightMode instance variable change game to frightened mode.
      */
@@ -316,71 +602,312 @@ public class Game {
     }
 
     /*
-    Getter method called in ghost and pacman classes to return associated 2D Array maze set up in game class.
+    Getter method called in ghost class to return the index of the squares the ghosts are registered in.
      */
-    public MazeSquare[][] returnMazeArray() {
-        return this.maze;
+    public OccupancyIndex getOccupancy() {
+        return this.occupancy;
+    }
+
+    /*
+    Getter method called in ghost class to return the precomputed ghost decisions for the maze.
+     */
+    public GhostPathTable getPathTable() {
+        return this.board.getPathTable();
+    }
+
+    /*
+    Returns the flow field towards a target, shared by every ghost heading for the same square. A few fields are
+    kept; when none holds the target, the least recently used one is recomputed, so each distinct target costs one
+    search however many ghosts follow it. While ghosts decide in parallel the fields are only read: the fields for
+    every role's target were computed before the ghosts started.
+     */
+    FlowField getFlowField(int targetRow, int targetCol) {
+        int target = this.board.nearestOpenSquare(targetRow, targetCol);
+        if (this.decidingInParallel) {
+            for (FlowField field : this.flowFields) {
+                if (field != null && field.getTarget() == target) {
+                    return field;
+                }
+            }
+            throw new IllegalStateException("No flow field was prepared for square " + target);
+        }
+        if (this.flowFields == null) {
+            this.flowFields = new FlowField[Constants.FLOW_FIELD_CACHE];
+        }
+        int oldest = 0;
+        for (int i = 0; i < this.flowFields.length; i++) {
+            FlowField field = this.flowFields[i];
+            if (field == null) {
+                // a free slot, used before replacing anything
+                this.flowFields[i] = new FlowField(this.board);
+                oldest = i;
+                break;
+            }
+            if (field.getTarget() == target) {
+                field.setLastUsed(this.tick);
+                return field;
+            }
+            if (field.getLastUsed() < this.flowFields[oldest].getLastUsed()) {
+                oldest = i;
+            }
+        }
+        FlowField field = this.flowFields[oldest];
+        field.compute(target);
+        field.setLastUsed(this.tick);
+        this.flowFieldUpdates++;
+        return field;
+    }
+
+    /*
+    Returns the number of flow field searches run so far.
+     */
+    public int getFlowFieldUpdates() {
+        return this.flowFieldUpdates;
+    }
+
+    /*
+    Getter method to return the board the game is played on.
+     */
+    public Board getBoard() {
+        return this.board;
+    }
+
+    /*
+    Attaches a recorder that is given every following input, or detaches it when passed null.
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /*
+    Getter method to return the seed the game's random moves are drawn from.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /*
+    Getter method called in ghost class to return the game's random number generator, which each ghost splits its
+    own off.
+     */
+    public GameRandom getRandom() {
+        return this.random;
+    }
+
+    /*
+    Starts the random moves again from a new seed, as if the game had been created with it: the game's generator is
+    seeded and every ghost's generator is seeded in order from it, as splitting it off again would. Nothing is
+    allocated, since this is used to draw different frightened moves from the same snapshot, as the Monte Carlo bot
+    does on every rollout.
+     */
+    public void reseed(long seed) {
+        this.random.setSeed(seed);
+        for (Ghost ghost : this.ghosts) {
+            this.random.splitInto(ghost.getRandom());
+        }
+    }
+
+    /*
+    Returns the number of ticks played so far.
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /*
+    Getter method to return the seconds of play one tick of this game stands for.
+     */
+    public double getTickDuration() {
+        return this.tickDuration;
+    }
+
+    /*
+    Returns the number of ticks the actors take to cross a square, one with the default tick.
+     */
+    public int getTicksPerSquare() {
+        return this.ticksPerSquare;
+    }
+
+    /*
+    Returns the number of ticks played since the actors last moved, from 0 to one less than the ticks per square.
+    Renderers use it to draw the actors part of the way across a square.
+     */
+    public int getTicksSinceMove() {
+        return this.ticksSinceMove;
+    }
+
+    /*
+    Returns whether the actors move on the next tick, which is when an input or a decision for the next square has
+    to be made. Always true with the default tick.
+     */
+    public boolean isMoveDue() {
+        return this.ticksSinceMove == this.ticksPerSquare - 1;
+    }
+
+    /*
+    Getter method to return the settings the game is played with.
+     */
+    public GameSettings getSettings() {
+        return this.settings;
+    }
+
+    /*
+    Getter method to return the direction pacman is moving in, or trying to move in when a wall is in the way.
+     */
+    public Direction getDirection() {
+        return this.direction;
+    }
+
+    /*
+    Getter method to return the pacman.
+     */
+    public Pacman getPacman() {
+        return this.pacman;
+    }
+
+    /*
+    Returns the ghosts in a fixed order, taking the roles inky, clyde, pinky and blinky in turn, so that renderers
+    can match them to colours. The array must not be changed by the caller.
+     */
+    public Ghost[] getGhosts() {
+        return this.ghosts;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getLives() {
+        return this.countLives;
+    }
+
+    public GameStatus getStatus() {
+        return this.status;
+    }
+
+    /*
+    Returns whether a dot or an energizer is still waiting to be eaten at the given row and column.
+     */
+    public boolean hasItem(int row, int col) {
+        int square = this.board.squareIndex(row, col);
+        return this.dots.get(square) || this.energizers.get(square);
+    }
+
+    /*
+    Returns the number of dots and energizers left to eat.
+     */
+    public int getRemainingItems() {
+        return this.dots.popCount() + this.energizers.popCount();
+    }
+
+    /*
+    Getter method to return the remaining dots, which must not be changed by the caller.
+     */
+    public Bitboard getDots() {
+        return this.dots;
+    }
+
+    /*
+    Getter method to return the remaining energizers, which must not be changed by the caller.
+     */
+    public Bitboard getEnergizers() {
+        return this.energizers;
     }
 
     /*
     Handles configuration of ghost pen with counter that pops out the instance of first ghost of the linkedlist,
-    takes this instance to move it inside the pen graphically and resets the counter after each instance.
+    takes this instance to move it outside the pen (logically as well, so it does not stay listed in the pen square)
+    and resets the counter after each instance. The counter runs on every tick, but ghosts only leave on the ticks the
+    actors move, so that they step out on the same square of play whatever the tick.
      */
     private void initialisePen() {
-        this.counterPen += Constants.TIMELINE_DURATION;
-        if (this.counterPen >= Constants.PEN_COUNT && !this.ghostPen.isEmpty()) {
+        this.counterPen += this.tickDuration;
+        if (this.counterPen >= this.settings.getPenCount() && !this.ghostPen.isEmpty() && this.isMoveDue()) {
             Ghost ghost = this.ghostPen.remove();
-            ghost.setGhostLoc(Constants.OUTSIDE_PEN_X, Constants.OUTSIDE_PEN_Y);
+            ghost.setGhostLoc(this.board.getPenExitRow(), this.board.getPenExitCol());
+            this.occupancy.add(ghost.getSlot(), this.board.squareIndex(ghost.getRow(), ghost.getCol()));
             this.counterPen = 0;
         }
     }
 
     /*
     Public method to add a ghost object to queue when pacman eats ghost in frightened mode, adding the ghost to ghost
-    pen graphically and logically.
+    pen logically.
      */
     public void addToPen(Ghost ghost) {
         this.ghostPen.add(ghost);
-        ghost.setGhostLoc(Constants.INSIDE_PEN_X, Constants.INSIDE_PEN_Y);
-        this.maze[Constants.INSIDE_PEN_Y/Constants.SQ_WIDTH][Constants.INSIDE_PEN_X/Constants.SQ_WIDTH].addCollideable(ghost);
+        ghost.setGhostLoc(this.board.getPenRow(), this.board.getPenCol());
+        this.occupancy.add(ghost.getSlot(), this.board.squareIndex(ghost.getRow(), ghost.getCol()));
+    }
+
+    /*
+    Handles game over by recording whether the player won or lost. Renderers read the status to stop their
+    timeline and show the matching label.
+     */
+    private void gameOver(GameStatus result) {
+        this.status = result;
+    }
+
+    /*
+    Removes an eaten dot or energizer from the bitboards, given its packed square.
+     */
+    public void removeItem(int square) {
+        this.dots.clear(square);
+        this.energizers.clear(square);
+    }
+
+    /*
+    Puts a dot back on a packed square. Used by benchmarks to refill pacman's square between collisions.
+     */
+    void addDot(int square) {
+        this.dots.set(square);
+    }
+
+    /*
+    The game's own listener, which settles the score and the lives from the events of a tick.
+     */
+    private void applyEvent(GameEvent event, int value, int tick) {
+        switch (event) {
+            case DOT_EATEN:
+                this.updateScore(Constants.DOT_SCORE);
+                break;
+            case ENERGIZER_EATEN:
+                this.updateScore(Constants.ENERGIZER_SCORE);
+                break;
+            case GHOST_EATEN:
+                this.updateScore(Constants.GHOST_SCORE);
+                break;
+            case PACMAN_CAUGHT:
+                this.countLives -= 1;
+                break;
+        }
     }
 
     /*
-    Handles game over set up by stopping timeline and creating graphical set up for label, passing
-    in text for label ("winner!" or "game over") as a parameter.
+    Getter method to return the bus the collideables publish the game's events to, so that renderers and metrics
+    can subscribe to it.
      */
-    private void gameOver(String labelText) {
-        this.timeline.stop();
-        Label label = new Label(labelText);
-        VBox labelBox = new VBox(label);
-        labelBox.setAlignment(Pos.CENTER);
-        labelBox.setPrefHeight(this.gamePane.getHeight());
-        labelBox.setPrefWidth(this.gamePane.getWidth());
-        label.setStyle("-fx-font: italic bold 50px arial, serif;-fx-text-alignment: center;-fx-text-fill: rgba(255,251,0,0.87);");
-        this.gamePane.getChildren().add(labelBox);
+    public GameEventBus getEvents() {
+        return this.events;
     }
 
     /*
-    Updates the count of eaten dots/energizers to track winning status of game
-    and updates the score label by incrementing total score
+    Increments total score
      */
-    public void updateScore(int dot, int score) {
-        this.dotCount += dot;
+    public void updateScore(int score) {
         this.score += score;
-        this.scoreLabel.setText(Constants.SCORE_LABEL_TEXT + this.score);
     }
 
     /*
-    Continuously updates amount of lives remaining and calls end of game when either (1) player wins by eating all items
+    Continuously checks the end of game when either (1) player wins by eating all items
     or (2) game over when player loses all 3 lives.
      */
     private void updateLives() {
-        this.livesLabel.setText(Constants.LIVES_LABEL_TEXT + this.countLives);
-        if (this.dotCount == Constants.TOTAL_DOTS) {
-            this.gameOver(Constants.GAME_WON_LABEL_TEXT);
+        if (this.dots.isEmpty() && this.energizers.isEmpty()) {
+            this.gameOver(GameStatus.WON);
         }
         if (this.countLives == 0) {
-            this.gameOver(Constants.GAME_OVER_LABEL_TEXT);
+            this.gameOver(GameStatus.LOST);
         }
     }
-}
\ No newline at end of file
+}
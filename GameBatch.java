@@ -0,0 +1,716 @@
+package pacman;
+
+/**
+ * Plays many games on one board at once for training and tuning workloads, holding them in struct-of-arrays form
+ * instead of as Game, Pacman and Ghost objects. Every quantity of every game lives in one primitive array indexed by
+ * game (and by game and ghost for the ghosts), and a call to step advances every game still being played by one
+ * tick. The tick runs phase by phase over all the games, as Game.updateGame runs them for one: pen, pacman, collision,
+ * ghosts, collision, end of game. The phases that are plain arithmetic over the games (the pen counters, the mode
+ * counters and the end of game check) are branch-free loops over int and double arrays that the JIT can unroll and
+ * vectorise, and the branchy ones touch only a few adjacent array elements per game.
+ *
+ * The rules are exactly those of Game.updateGame, Pacman.movePacman and Ghost.generateDirection with classic
+ * pathing and square collisions, including their quirks: only the first collideable on pacman's square collides
+ * and the square is then emptied, the tick the chase ends moves the ghosts twice, and frightened ghosts draw from a
+ * generator per ghost that matches SplitMixRandom. A batch game and a Game with the same seed and the same inputs play
+ * the same game, tick for tick (GameBatchTest checks this).
+ *
+ * Directions are stored as Direction ordinals, with NONE for a ghost that found no move. The occupancy index is
+ * replaced by a registration number per ghost: the ghosts registered in a square collide in the order they were
+ * registered, which is the order of the index's lists.
+ */
+public class GameBatch {
+
+    static final int NONE = 4;
+    private static final int DIRECTION_COUNT = 4;
+    private static final int HEADINGS = DIRECTION_COUNT + 1; // every direction and NONE
+    private static final int LEFT = Direction.LEFT.ordinal();
+    private static final int RIGHT = Direction.RIGHT.ordinal();
+    private static final int UP = Direction.UP.ordinal();
+    // row and column steps per direction ordinal
+    private static final int[] ROW_STEP = new int[DIRECTION_COUNT];
+    private static final int[] COL_STEP = new int[DIRECTION_COUNT];
+    private static final int GHOST_ROLES = 4;
+    private static final int INKY = 0;
+    private static final int CLYDE = 1;
+    private static final int PINKY = 2;
+    private static final int STARTING_LIVES = 3;
+    private static final byte PLAYING = 0;
+    private static final byte WON = 1;
+    private static final byte LOST = 2;
+    private static final GameStatus[] STATUSES = {GameStatus.PLAYING, GameStatus.WON, GameStatus.LOST};
+
+    static {
+        for (Direction direction : Direction.values()) {
+            ROW_STEP[direction.ordinal()] = direction.newRow(0);
+            COL_STEP[direction.ordinal()] = direction.newCol(0);
+        }
+    }
+
+    // the board, flattened once
+    private Board board;
+    private GameSettings settings;
+    private GhostPathTable pathTable; // null on boards too large for one
+    private int rows;
+    private int cols;
+    private int tunnelRow;
+    private boolean[] walls;
+    /*
+    Moves precomputed per square and heading, at square * HEADINGS + heading, for squares off the edge columns: the
+    only way on for a ghost in a corridor (NONE on junctions, as Ghost.onlyMove), and a bit per direction that is
+    not a wall and not back the way the ghost came, which both the BFS and the random moves choose among.
+     */
+    private byte[] corridorMoves;
+    private byte[] openMoves;
+    private long[] startDots;
+    private long[] startEnergizers;
+    private int words; // longs per item bitboard
+    private int items;
+
+    private int games;
+    private int ghosts; // ghosts per game
+    // per game
+    private byte[] status;
+    private int[] tick;
+    private int[] score;
+    private int[] lives;
+    private int[] remaining;
+    private int[] pacmanRow;
+    private int[] pacmanCol;
+    private int[] pacmanDirection;
+    private int[] counter;
+    private int[] countFright;
+    private double[] counterPen;
+    private boolean[] fright;
+    // the mode limits of the settings in ticks, converted at the start of every step
+    private double chaseLimit;
+    private double scatterLimit;
+    private double frightenedLimit;
+    private int[] registrations; // registration numbers handed out so far
+    private int[] penHead;
+    private int[] penSize;
+    // per game, in blocks of words
+    private long[] dots;
+    private long[] energizers;
+    // per game and ghost, at game * ghosts + ghost
+    private int[] ghostRow;
+    private int[] ghostCol;
+    private int[] ghostDirection;
+    private int[] registeredSquare; // -1 when the ghost is not registered in a square
+    private int[] registration;
+    private long[] random; // state of each ghost's SplitMixRandom
+    // per game, in blocks of penCapacity: ring buffers of ghost indices waiting in the pen
+    private int penCapacity;
+    private int[] pen;
+    // targets of the four roles for the game whose ghosts are moving
+    private int[] targetRows = new int[GHOST_ROLES];
+    private int[] targetCols = new int[GHOST_ROLES];
+
+    /*
+    Sets up one game per seed on the board with the given settings. Only classic pathing, square collisions, a
+    generator per ghost and the default tick of one square are supported; other settings are rejected.
+     */
+    public GameBatch(Board board, GameSettings settings, long[] seeds) {
+        if (settings.getPathingMode() != PathingMode.CLASSIC || settings.getCollisionMode() != CollisionMode.SQUARE
+                || settings.getRandomMode() != RandomMode.PER_GHOST
+                || settings.getTickDuration() != Constants.TIMELINE_DURATION) {
+            throw new IllegalArgumentException("A game batch only plays classic pathing with square collisions, a "
+                    + "generator per ghost and a tick of one square: " + settings);
+        }
+        this.board = board;
+        this.settings = settings;
+        this.pathTable = board.getPathTable();
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.tunnelRow = board.getTunnelRow();
+        int squares = board.getSquares();
+        this.walls = new boolean[squares];
+        this.corridorMoves = new byte[squares * HEADINGS];
+        this.openMoves = new byte[squares * HEADINGS];
+        this.words = (squares + Long.SIZE - 1) / Long.SIZE;
+        this.startDots = new long[this.words];
+        this.startEnergizers = new long[this.words];
+        Direction[] directions = Direction.values();
+        for (int square = 0; square < squares; square++) {
+            this.walls[square] = board.getWalls().get(square);
+        }
+        for (int square = 0; square < squares; square++) {
+            int row = square / this.cols;
+            int col = square % this.cols;
+            boolean inside = row > 0 && row < this.rows - 1 && col > 0 && col < this.cols - 1;
+            for (int heading = 0; heading < HEADINGS; heading++) {
+                int corridorMove = NONE;
+                int open = 0;
+                for (Direction direction : directions) {
+                    int ordinal = direction.ordinal();
+                    if (heading != NONE && ordinal == (heading ^ 1)) {
+                        continue;
+                    }
+                    if (board.neighbour(square, direction) >= 0) {
+                        corridorMove = corridorMove == NONE ? ordinal : -1;
+                    }
+                    if (inside && !this.walls[direction.newRow(row) * this.cols + direction.newCol(col)]) {
+                        open |= 1 << ordinal;
+                    }
+                }
+                boolean corridor = heading != NONE && !board.isJunction(square) && corridorMove >= 0;
+                this.corridorMoves[square * HEADINGS + heading] = (byte) (corridor ? corridorMove : NONE);
+                this.openMoves[square * HEADINGS + heading] = (byte) open;
+            }
+            if (board.getDots().get(square)) {
+                this.startDots[square >>> 6] |= 1L << square;
+            }
+            if (board.getEnergizers().get(square)) {
+                this.startEnergizers[square >>> 6] |= 1L << square;
+            }
+        }
+        this.items = board.getItemCount();
+
+        this.games = seeds.length;
+        this.ghosts = settings.getGhostCount();
+        int k = this.games;
+        this.status = new byte[k];
+        this.tick = new int[k];
+        this.score = new int[k];
+        this.lives = new int[k];
+        this.remaining = new int[k];
+        this.pacmanRow = new int[k];
+        this.pacmanCol = new int[k];
+        this.pacmanDirection = new int[k];
+        this.counter = new int[k];
+        this.countFright = new int[k];
+        this.counterPen = new double[k];
+        this.fright = new boolean[k];
+        this.registrations = new int[k];
+        this.penHead = new int[k];
+        this.penSize = new int[k];
+        this.dots = new long[k * this.words];
+        this.energizers = new long[k * this.words];
+        this.ghostRow = new int[k * this.ghosts];
+        this.ghostCol = new int[k * this.ghosts];
+        this.ghostDirection = new int[k * this.ghosts];
+        this.registeredSquare = new int[k * this.ghosts];
+        this.registration = new int[k * this.ghosts];
+        this.random = new long[k * this.ghosts];
+        this.penCapacity = Math.max(1, this.ghosts);
+        this.pen = new int[k * this.penCapacity];
+        for (int game = 0; game < k; game++) {
+            this.restart(game, seeds[game]);
+        }
+    }
+
+    /*
+    Starts a new game with the given seed in place of the game at an index, as the Game constructor does, so that a
+    long run can replace the games that end without rebuilding the batch.
+     */
+    public void restart(int game, long seed) {
+        this.status[game] = PLAYING;
+        this.tick[game] = 0;
+        this.score[game] = 0;
+        this.lives[game] = STARTING_LIVES;
+        this.remaining[game] = this.items;
+        this.registrations[game] = 0;
+        System.arraycopy(this.startDots, 0, this.dots, game * this.words, this.words);
+        System.arraycopy(this.startEnergizers, 0, this.energizers, game * this.words, this.words);
+        // every ghost splits its generator off the game's in order, as SplitMixRandom.split does
+        long root = seed;
+        for (int ghost = game * this.ghosts; ghost < (game + 1) * this.ghosts; ghost++) {
+            this.registeredSquare[ghost] = -1;
+            root += SplitMixRandom.GOLDEN_GAMMA;
+            this.random[ghost] = SplitMixRandom.mix64(root);
+        }
+        this.start(game);
+    }
+
+    /*
+    Passes an input to a game, as Game.handleInput: pacman turns when the requested way is open and keeps its
+    direction otherwise.
+     */
+    public void handleInput(int game, Direction requested) {
+        int direction = requested.ordinal();
+        if (this.checkDirValid(game, ROW_STEP[direction], COL_STEP[direction])) {
+            this.pacmanDirection[game] = direction;
+        }
+    }
+
+    /*
+    Advances every game still being played by one tick. Games that are won or lost are left as they are.
+     */
+    public void step() {
+        int k = this.games;
+        double penCount = this.settings.getPenCount();
+        this.chaseLimit = GameSettings.inTicks(this.settings.getChaseLimit(), Constants.TIMELINE_DURATION);
+        this.scatterLimit = GameSettings.inTicks(this.settings.getScatterLimit(), Constants.TIMELINE_DURATION);
+        this.frightenedLimit = GameSettings.inTicks(this.settings.getFrightenedLimit(), Constants.TIMELINE_DURATION);
+        // release a ghost from the pen of every game whose pen counter is up
+        for (int game = 0; game < k; game++) {
+            this.counterPen[game] += this.status[game] == PLAYING ? Constants.TIMELINE_DURATION : 0;
+        }
+        for (int game = 0; game < k; game++) {
+            if (this.status[game] == PLAYING && this.counterPen[game] >= penCount && this.penSize[game] > 0) {
+                this.releaseGhost(game);
+            }
+        }
+        for (int game = 0; game < k; game++) {
+            if (this.status[game] == PLAYING) {
+                this.movePacman(game);
+                this.collide(game);
+            }
+        }
+        for (int game = 0; game < k; game++) {
+            if (this.status[game] == PLAYING) {
+                this.switchGameMode(game);
+                this.collide(game);
+            }
+        }
+        // end of game, with a loss taking precedence as in Game.updateLives
+        for (int game = 0; game < k; game++) {
+            byte current = this.status[game];
+            byte result = this.lives[game] == 0 ? LOST : this.remaining[game] == 0 ? WON : PLAYING;
+            this.status[game] = current == PLAYING ? result : current;
+            this.tick[game] += current == PLAYING ? 1 : 0;
+        }
+    }
+
+    /*
+    Returns the number of games in the batch.
+     */
+    public int getGames() {
+        return this.games;
+    }
+
+    /*
+    Returns the number of games still being played.
+     */
+    public int getPlaying() {
+        int playing = 0;
+        for (int game = 0; game < this.games; game++) {
+            playing += this.status[game] == PLAYING ? 1 : 0;
+        }
+        return playing;
+    }
+
+    public GameStatus getStatus(int game) {
+        return STATUSES[this.status[game]];
+    }
+
+    public int getTick(int game) {
+        return this.tick[game];
+    }
+
+    public int getScore(int game) {
+        return this.score[game];
+    }
+
+    public int getLives(int game) {
+        return this.lives[game];
+    }
+
+    public int getRemainingItems(int game) {
+        return this.remaining[game];
+    }
+
+    public boolean getFrightMode(int game) {
+        return this.fright[game];
+    }
+
+    public int getPacmanRow(int game) {
+        return this.pacmanRow[game];
+    }
+
+    public int getPacmanCol(int game) {
+        return this.pacmanCol[game];
+    }
+
+    public int getGhostRow(int game, int ghost) {
+        return this.ghostRow[game * this.ghosts + ghost];
+    }
+
+    public int getGhostCol(int game, int ghost) {
+        return this.ghostCol[game * this.ghosts + ghost];
+    }
+
+    /*
+    Returns the direction a ghost last moved in, or null when it found no move.
+     */
+    public Direction getGhostDirection(int game, int ghost) {
+        int direction = this.ghostDirection[game * this.ghosts + ghost];
+        return direction == NONE ? null : Direction.values()[direction];
+    }
+
+    /*
+    Starts a round as Game.start: empties the pen, resets the counters and fright mode, moves pacman and the ghosts
+    to their starting squares and points pacman upwards.
+     */
+    private void start(int game) {
+        this.penHead[game] = 0;
+        this.penSize[game] = 0;
+        this.counterPen[game] = 0;
+        this.countFright[game] = 0;
+        this.counter[game] = 0;
+        this.fright[game] = false;
+        this.pacmanRow[game] = this.board.getPacmanStartRow();
+        this.pacmanCol[game] = this.board.getPacmanStartCol();
+        int row = this.board.getGhostStartRow();
+        int col = this.board.getGhostStartCol();
+        for (int i = 0; i < this.ghosts; i++) {
+            int ghost = game * this.ghosts + i;
+            switch (i % GHOST_ROLES) {
+                case INKY:
+                    this.respawn(ghost, row, col);
+                    this.addToPenQueue(game, ghost);
+                    break;
+                case CLYDE:
+                    this.respawn(ghost, row - Constants.CLYDE_OFFSET, col);
+                    break;
+                case PINKY:
+                    this.respawn(ghost, row, col - Constants.PINKY_OFFSET);
+                    this.addToPenQueue(game, ghost);
+                    break;
+                default:
+                    this.respawn(ghost, row + 1, col);
+                    this.addToPenQueue(game, ghost);
+            }
+            this.register(game, ghost);
+        }
+        this.pacmanDirection[game] = UP;
+    }
+
+    /*
+    Starts a new round after pacman is caught, as Game.reset.
+     */
+    private void reset(int game) {
+        for (int ghost = game * this.ghosts; ghost < (game + 1) * this.ghosts; ghost++) {
+            this.registeredSquare[ghost] = -1;
+        }
+        this.start(game);
+    }
+
+    private void respawn(int ghost, int row, int col) {
+        this.ghostRow[ghost] = row;
+        this.ghostCol[ghost] = col;
+        this.ghostDirection[ghost] = UP;
+    }
+
+    /*
+    Lets the first ghost in the pen queue out, as Game.initialisePen.
+     */
+    private void releaseGhost(int game) {
+        int ghost = this.pen[game * this.penCapacity + this.penHead[game]];
+        this.penHead[game] = (this.penHead[game] + 1) % this.penCapacity;
+        this.penSize[game]--;
+        this.ghostRow[ghost] = this.board.getPenExitRow();
+        this.ghostCol[ghost] = this.board.getPenExitCol();
+        this.register(game, ghost);
+        this.counterPen[game] = 0;
+    }
+
+    /*
+    Adds a ghost to the back of a game's pen queue, making room in every game's queue when this one is full.
+     */
+    private void addToPenQueue(int game, int ghost) {
+        if (this.penSize[game] == this.penCapacity) {
+            this.growPens();
+        }
+        int slot = (this.penHead[game] + this.penSize[game]) % this.penCapacity;
+        this.pen[game * this.penCapacity + slot] = ghost;
+        this.penSize[game]++;
+    }
+
+    /*
+    Doubles the capacity of every pen queue, moving each queue to the start of its new block.
+     */
+    private void growPens() {
+        int capacity = this.penCapacity * 2;
+        int[] grown = new int[this.games * capacity];
+        for (int game = 0; game < this.games; game++) {
+            for (int i = 0; i < this.penSize[game]; i++) {
+                grown[game * capacity + i] = this.pen[game * this.penCapacity + (this.penHead[game] + i) % this.penCapacity];
+            }
+            this.penHead[game] = 0;
+        }
+        this.pen = grown;
+        this.penCapacity = capacity;
+    }
+
+    /*
+    Registers a ghost in the square it is in, after every ghost already registered there.
+     */
+    private void register(int game, int ghost) {
+        this.registeredSquare[ghost] = this.ghostRow[ghost] * this.cols + this.ghostCol[ghost];
+        this.registration[ghost] = ++this.registrations[game];
+    }
+
+    /*
+    Returns the ghost registered first in a square of a game, or -1 when there is none.
+     */
+    private int firstGhost(int game, int square) {
+        int first = -1;
+        for (int ghost = game * this.ghosts; ghost < (game + 1) * this.ghosts; ghost++) {
+            if (this.registeredSquare[ghost] == square
+                    && (first < 0 || this.registration[ghost] < this.registration[first])) {
+                first = ghost;
+            }
+        }
+        return first;
+    }
+
+    /*
+    Unregisters every ghost in a square of a game.
+     */
+    private void clearSquare(int game, int square) {
+        for (int ghost = game * this.ghosts; ghost < (game + 1) * this.ghosts; ghost++) {
+            if (this.registeredSquare[ghost] == square) {
+                this.registeredSquare[ghost] = -1;
+            }
+        }
+    }
+
+    /*
+    Lets pacman collide with the first collideable on its square, as Game.collide with the collide methods of Dot,
+    Energizer and Ghost, and the score and lives settled straight away since nothing in between reads them.
+     */
+    private void collide(int game) {
+        int row = this.pacmanRow[game];
+        int col = this.pacmanCol[game];
+        if (col >= this.cols) {
+            return;
+        }
+        int square = row * this.cols + col;
+        int word = game * this.words + (square >>> 6);
+        long bit = 1L << square;
+        if ((this.dots[word] & bit) != 0) {
+            this.dots[word] &= ~bit;
+            this.remaining[game]--;
+            this.score[game] += Constants.DOT_SCORE;
+        } else if ((this.energizers[word] & bit) != 0) {
+            this.energizers[word] &= ~bit;
+            this.remaining[game]--;
+            this.fright[game] = true;
+            this.score[game] += Constants.ENERGIZER_SCORE;
+        } else {
+            int ghost = this.firstGhost(game, square);
+            if (ghost < 0) {
+                return;
+            }
+            if (this.fright[game]) {
+                this.addToPenQueue(game, ghost);
+                this.ghostRow[ghost] = this.board.getPenRow();
+                this.ghostCol[ghost] = this.board.getPenCol();
+                this.register(game, ghost);
+                this.score[game] += Constants.GHOST_SCORE;
+            } else {
+                this.lives[game]--;
+                this.reset(game);
+            }
+        }
+        this.clearSquare(game, square);
+    }
+
+    /*
+    Moves pacman one square in its direction when the way is open, as Pacman.movePacman.
+     */
+    private void movePacman(int game) {
+        int direction = this.pacmanDirection[game];
+        if (this.checkDirValid(game, ROW_STEP[direction], COL_STEP[direction])) {
+            this.pacmanRow[game] += ROW_STEP[direction];
+            this.pacmanCol[game] += COL_STEP[direction];
+        }
+    }
+
+    /*
+    Returns whether pacman may move by a step, wrapping it through the tunnel first when the step leaves the board,
+    as Pacman.checkDirValid.
+     */
+    private boolean checkDirValid(int game, int rowStep, int colStep) {
+        int row = this.pacmanRow[game];
+        int col = this.pacmanCol[game];
+        if (col + colStep < 0 || col + colStep >= this.cols) {
+            int rightExtrema = this.cols - 1;
+            if (col == 0 && row == this.tunnelRow) {
+                this.pacmanCol[game] = rightExtrema - 1;
+            }
+            if (this.pacmanCol[game] == rightExtrema && row == this.tunnelRow) {
+                this.pacmanCol[game] = 0;
+            }
+            return true;
+        }
+        return !this.walls[(row + rowStep) * this.cols + col + colStep];
+    }
+
+    /*
+    Counts the ticks of the game modes and moves the ghosts, as Game.switchGameMode.
+     */
+    private void switchGameMode(int game) {
+        if (!this.fright[game]) {
+            if (this.counter[game] < this.chaseLimit) {
+                this.moveGhosts(game, GameMode.CHASE);
+                this.counter[game]++;
+            }
+            if (this.counter[game] >= this.chaseLimit) {
+                this.moveGhosts(game, GameMode.SCATTER);
+                this.counter[game]++;
+            }
+            if (this.counter[game] >= this.scatterLimit) {
+                this.counter[game] = 0;
+            }
+        } else {
+            this.countFright[game]++;
+            this.moveGhosts(game, GameMode.FRIGHTENED);
+            if (this.countFright[game] >= this.frightenedLimit) {
+                this.fright[game] = false;
+                this.countFright[game] = 0;
+            }
+        }
+    }
+
+    /*
+    Sets the targets of the four roles and moves every ghost of a game in order, as Game.setGhostTarget.
+     */
+    private void moveGhosts(int game, GameMode mode) {
+        int row = this.pacmanRow[game];
+        int col = this.pacmanCol[game];
+        if (mode == GameMode.SCATTER) {
+            this.setRoleTarget(0, 1, 1);
+            this.setRoleTarget(1, this.rows - 1, 1);
+            this.setRoleTarget(2, 1, this.cols - 1);
+            this.setRoleTarget(3, this.rows - 1, this.cols - 1);
+        } else {
+            this.setRoleTarget(0, row - Constants.INKY_ROW, col);
+            this.setRoleTarget(1, row, col);
+            this.setRoleTarget(2, row + 1, col - Constants.PINKY_COL);
+            this.setRoleTarget(3, row, col + Constants.BLINKY_COL);
+        }
+        boolean frightened = this.fright[game];
+        for (int i = 0; i < this.ghosts; i++) {
+            int ghost = game * this.ghosts + i;
+            int direction = frightened ? this.randomDirection(game, ghost)
+                    : this.chooseDirection(ghost, this.targetRows[i % GHOST_ROLES], this.targetCols[i % GHOST_ROLES]);
+            // commit the move, registering the ghost again in the square it moves into
+            this.ghostDirection[ghost] = direction;
+            if (direction != NONE) {
+                this.ghostRow[ghost] += ROW_STEP[direction];
+                this.ghostCol[ghost] += COL_STEP[direction];
+            }
+            this.register(game, ghost);
+        }
+    }
+
+    private void setRoleTarget(int role, int row, int col) {
+        this.targetRows[role] = row;
+        this.targetCols[role] = col;
+    }
+
+    /*
+    Chooses the direction of a ghost in chase or scatter mode, as Ghost.chooseDirection with classic pathing: the
+    only way on along a corridor, otherwise the path table, otherwise the ghost's BFS.
+     */
+    private int chooseDirection(int ghost, int targetRow, int targetCol) {
+        int row = this.ghostRow[ghost];
+        int col = this.ghostCol[ghost];
+        if (col <= 0 || col >= this.cols - 1) {
+            return this.wrapGhost(ghost);
+        }
+        int square = row * this.cols + col;
+        int current = this.ghostDirection[ghost];
+        int direction = this.corridorMoves[square * HEADINGS + current];
+        if (direction == NONE) {
+            direction = this.pathTable != null && this.pathTable.covers(row, col, targetRow, targetCol)
+                    ? this.pathTable.decision(square, current, targetRow, targetCol)
+                    : this.closestNeighbour(row, col, current, targetRow, targetCol);
+        }
+        this.ghostDirection[ghost] = direction;
+        return direction;
+    }
+
+    /*
+    The ghost's BFS, as GhostPathTable.closestNeighbour: the open neighbour other than back closest to the target,
+    with the minimum distance truncated to an int.
+     */
+    private int closestNeighbour(int row, int col, int current, int targetRow, int targetCol) {
+        int open = this.openMoves[(row * this.cols + col) * HEADINGS + current];
+        int minDistance = Constants.MIN_DISTANCE;
+        int closest = NONE;
+        for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+            int newRow = row + ROW_STEP[direction];
+            int newCol = col + COL_STEP[direction];
+            if ((open & (1 << direction)) != 0) {
+                double distanceX = newCol * Constants.SQ_WIDTH - targetCol * Constants.SQ_WIDTH;
+                double distanceY = newRow * Constants.SQ_WIDTH - targetRow * Constants.SQ_WIDTH;
+                double distance = Math.sqrt((distanceX * distanceX) + (distanceY * distanceY));
+                if (distance < minDistance) {
+                    minDistance = (int) distance;
+                    closest = direction;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /*
+    Chooses a random direction for a frightened ghost, as Ghost.generateRandomDirection.
+     */
+    private int randomDirection(int game, int ghost) {
+        int row = this.ghostRow[ghost];
+        int col = this.ghostCol[ghost];
+        if (col <= 0 || col >= this.cols - 1) {
+            return this.wrapGhost(ghost);
+        }
+        int valid = this.openMoves[(row * this.cols + col) * HEADINGS + this.ghostDirection[ghost]];
+        int validCount = Integer.bitCount(valid);
+        if (validCount == 0) {
+            this.ghostDirection[ghost] = NONE;
+            return NONE;
+        }
+        int pick = this.nextInt(ghost, validCount);
+        int direction = 0;
+        for (; ; direction++) {
+            if ((valid & (1 << direction)) != 0 && pick-- == 0) {
+                break;
+            }
+        }
+        this.ghostDirection[ghost] = direction;
+        return direction;
+    }
+
+    /*
+    Moves a ghost on an edge column of the tunnel row to the other edge, as Ghost.wrapGhost, and returns the
+    direction it goes on in.
+     */
+    private int wrapGhost(int ghost) {
+        int rightExtrema = this.cols - 1;
+        int row = this.ghostRow[ghost];
+        int col = this.ghostCol[ghost];
+        if (col == 0 && row == this.tunnelRow) {
+            this.ghostCol[ghost] = rightExtrema;
+            return LEFT;
+        } else if (col == rightExtrema && row == this.tunnelRow) {
+            this.ghostCol[ghost] = 0;
+            return RIGHT;
+        }
+        return this.ghostDirection[ghost];
+    }
+
+    /*
+    Draws a number below the bound from a ghost's generator, exactly as SplitMixRandom.nextInt(bound).
+     */
+    private int nextInt(int ghost, int bound) {
+        int r = this.next(ghost);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = this.next(ghost) >>> 1) {
+            // rejected a draw from the uneven top of the range
+        }
+        return r;
+    }
+
+    /*
+    Advances a ghost's generator and returns 32 random bits.
+     */
+    private int next(int ghost) {
+        this.random[ghost] += SplitMixRandom.GOLDEN_GAMMA;
+        return SplitMixRandom.mix32(this.random[ghost]);
+    }
+}
@@ -0,0 +1,10 @@
+package pacman;
+
+/**
+ * Enum to represent what can happen to pacman in a tick, published by the collideables to the game's event bus.
+ * Every event carries a value: the packed square of an eaten dot or energizer, or the index in the game of the
+ * ghost that was eaten or that caught pacman.
+ */
+public enum GameEvent {
+    DOT_EATEN, ENERGIZER_EATEN, GHOST_EATEN, PACMAN_CAUGHT;
+}
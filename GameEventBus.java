@@ -0,0 +1,99 @@
+package pacman;
+
+import java.util.Arrays;
+
+/**
+ * Queue of the events of a game, kept in a ring buffer sized when the game is created. Collisions publish events
+ * while the tick runs, and the game drains them at the end of the tick, calling every listener for every event in
+ * the order they were published. Listeners therefore see a tick only once it is consistent, and never run in the
+ * middle of a collision.
+ *
+ * Events are stored as parallel arrays of their type, value and tick, so publishing and draining allocate nothing.
+ * The buffer holds more events than one tick can publish; running out of room means events are not being drained
+ * and throws IllegalStateException.
+ */
+public class GameEventBus {
+
+    private static final GameEvent[] EVENTS = GameEvent.values();
+
+    private byte[] types;
+    private int[] values;
+    private int[] ticks;
+    private int mask;
+    private int head; // index of the oldest event not drained yet, counted from the start of the game
+    private int tail; // index the next event is published at
+    private GameEventListener[] listeners;
+
+    /*
+    Creates a bus that can hold at least the given number of events between two drains.
+     */
+    public GameEventBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.types = new byte[size];
+        this.values = new int[size];
+        this.ticks = new int[size];
+        this.mask = size - 1;
+        this.listeners = new GameEventListener[0];
+    }
+
+    /*
+    Adds a listener, called after the listeners already added for every event drained from now on.
+     */
+    public void subscribe(GameEventListener listener) {
+        this.listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        this.listeners[this.listeners.length - 1] = listener;
+    }
+
+    /*
+    Removes a listener. Does nothing for a listener that was never added.
+     */
+    public void unsubscribe(GameEventListener listener) {
+        for (int i = 0; i < this.listeners.length; i++) {
+            if (this.listeners[i] == listener) {
+                GameEventListener[] remaining = new GameEventListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, remaining, 0, i);
+                System.arraycopy(this.listeners, i + 1, remaining, i, remaining.length - i);
+                this.listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    /*
+    Adds an event to the end of the queue. Throws IllegalStateException when the buffer is full.
+     */
+    public void publish(GameEvent event, int value, int tick) {
+        if (this.tail - this.head > this.mask) {
+            throw new IllegalStateException("Event buffer full: " + (this.mask + 1) + " events were not drained");
+        }
+        int slot = this.tail & this.mask;
+        this.types[slot] = (byte) event.ordinal();
+        this.values[slot] = value;
+        this.ticks[slot] = tick;
+        this.tail++;
+    }
+
+    /*
+    Passes every queued event to every listener, oldest first, and empties the queue. Events published by a
+    listener while draining are drained in the same call.
+     */
+    public void drain() {
+        while (this.head != this.tail) {
+            int slot = this.head & this.mask;
+            this.head++;
+            GameEvent event = EVENTS[this.types[slot]];
+            int value = this.values[slot];
+            int tick = this.ticks[slot];
+            for (GameEventListener listener : this.listeners) {
+                listener.onEvent(event, value, tick);
+            }
+        }
+    }
+
+    /*
+    Returns the number of events published and not drained yet.
+     */
+    public int getPending() {
+        return this.tail - this.head;
+    }
+}
@@ -0,0 +1,9 @@
+package pacman;
+
+/**
+ * Interface for anything that follows the events of a game, such as the game's own score and lives, the labels of
+ * the renderer or the tick metrics. Listeners are called when the game drains its event bus at the end of a tick.
+ */
+public interface GameEventListener {
+    void onEvent(GameEvent event, int value, int tick);
+}
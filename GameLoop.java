@@ -0,0 +1,70 @@
+package pacman;
+
+import java.util.function.DoubleConsumer;
+import javafx.animation.AnimationTimer;
+
+/**
+ * Frame loop that runs game logic at a fixed timestep, independent of how often JavaFX draws a frame. Each frame
+ * adds the elapsed time to an accumulator and runs as many logic steps as fit in it, then renders with the
+ * fraction of a step left over, so the renderer can interpolate between the last two logic states.
+ *
+ * A long pause (a slow frame or the window being dragged) is clamped, so the loop never tries to catch up with
+ * more than a few steps in one frame.
+ *
+ * The step is the tick of the game's settings. The window plays with Constants.PLAY_TICK_DURATION, sixty steps a
+ * second, over which an actor takes several steps to cross a square; the game's timers are in seconds, so the game
+ * keeps its speed whatever the step.
+ */
+public class GameLoop extends AnimationTimer {
+
+    private double stepDuration;
+    private Runnable step;
+    private DoubleConsumer render;
+    private double accumulator;
+    private long lastFrame;
+
+    /*
+    Constructs a loop that calls step every stepDuration seconds of real time and render once per frame with the
+    interpolation factor, between 0 (the previous logic state) and 1 (the current one).
+     */
+    public GameLoop(double stepDuration, Runnable step, DoubleConsumer render) {
+        this.stepDuration = stepDuration;
+        this.step = step;
+        this.render = render;
+        this.lastFrame = -1;
+    }
+
+    /*
+    Called by JavaFX once per frame with the frame's timestamp in nanoseconds.
+     */
+    @Override
+    public void handle(long now) {
+        if (this.lastFrame < 0) {
+            this.lastFrame = now;
+        }
+        double frameTime = Math.min((now - this.lastFrame) / 1e9, Constants.MAX_FRAME_TIME);
+        this.lastFrame = now;
+        this.accumulator += frameTime;
+
+        int steps = 0;
+        while (this.accumulator >= this.stepDuration && steps < Constants.MAX_STEPS_PER_FRAME) {
+            this.step.run();
+            this.accumulator -= this.stepDuration;
+            steps++;
+        }
+        // when logic cannot keep up, drop the backlog instead of letting it grow every frame
+        if (this.accumulator >= this.stepDuration) {
+            this.accumulator = 0;
+        }
+        this.render.accept(this.accumulator / this.stepDuration);
+    }
+
+    /*
+    Stops the loop and forgets the last frame, so that a restarted loop does not see the paused time.
+     */
+    @Override
+    public void stop() {
+        super.stop();
+        this.lastFrame = -1;
+    }
+}
@@ -0,0 +1,40 @@
+package pacman;
+
+/**
+ * A source of the random moves of frightened ghosts. Each game has a root generator seeded with the game's seed, and
+ * every ghost draws from a generator split off it when the ghost is created, so that a game is reproduced exactly from
+ * its seed. The whole state of a generator is one long, which a snapshot of the game captures and restores.
+ */
+public interface GameRandom {
+
+    /*
+    Returns a number from 0 (inclusive) to the bound (exclusive), which must be positive.
+     */
+    int nextInt(int bound);
+
+    /*
+    Returns a generator for a ghost, drawn from this one so that it only depends on this generator's state.
+     */
+    GameRandom split();
+
+    /*
+    Draws from this generator exactly as split does, but seeds a generator split off it before instead of creating
+    one, so that it then draws what a new split generator would. Lets a game reseed its ghosts without allocating.
+     */
+    void splitInto(GameRandom child);
+
+    /*
+    Starts the generator again from a seed, as when it was constructed with it.
+     */
+    void setSeed(long seed);
+
+    /*
+    Returns the current state of the generator.
+     */
+    long getState();
+
+    /*
+    Puts the generator back in a state returned by getState, so that it draws the same numbers again from there.
+     */
+    void setState(long state);
+}
@@ -0,0 +1,428 @@
+package pacman;
+
+import cs15.fnl.pacmanSupport.CS15SquareType;
+import javafx.geometry.Pos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Draws a game with JavaFX and drives it with a fixed-timestep loop. The renderer builds the maze, item, pacman
+ * and ghost shapes once. After every tick of the game it hides eaten items and updates the labels, and on every
+ * frame it places pacman and the ghosts between the square they left and the square they are crossing to. The
+ * actors move a square at a time in the game but take Game.getTicksPerSquare ticks to cross it, so the fraction of
+ * the way across counts the ticks since the last move plus the part of the next tick already elapsed, and they glide
+ * from square to square however long a tick is. All game logic stays in the Game class.
+ *
+ * Pacman and the ghosts are ImageViews on a sprite atlas rasterised at startup. Animating them only switches the
+ * viewport each one shows: pacman's mouth opens and closes as it crosses a square, and the ghosts' skirts change
+ * on every square. No shapes or paints are created while the game runs.
+ *
+ * After a tick the renderer only touches what changed since the last one. It keeps the items and the ghost frame
+ * it shows, and listens to the game's event bus. It then shows or hides just the items whose bit differs,
+ * switches the ghost frames only when frightened mode starts or ends or the skirt moves, and rebuilds the labels
+ * only after a tick that published an event, since only events change the score or the lives. No strings are
+ * built and no nodes are visited on a tick where nothing changed, which keeps pulses short and garbage low
+ * (compare with -Djavafx.pulseLogger=true).
+ *
+ * In canvas mode the maze costs two nodes whatever its size. The walls are drawn once onto a cached canvas, a row
+ * of adjacent walls at a time, and the items onto a second canvas where an eaten item is erased by clearing its
+ * square. Only pacman and the ghosts remain nodes.
+ */
+public class GameRenderer {
+
+    private Game game;
+    private Pane gamePane;
+    private GameLoop loop;
+    private Label scoreLabel;
+    private Label livesLabel;
+    private RenderMode mode;
+    private Circle[][] items; // null for squares that never hold a dot or energizer, and in canvas mode
+    private GraphicsContext itemLayer; // the canvas the items are drawn on, in canvas mode only
+    // the state last pushed to the nodes, compared with the game's after every tick
+    private Bitboard shownDots;
+    private Bitboard shownEnergizers;
+    private boolean labelsStale = true; // set by every event, cleared once the labels are rebuilt
+    private boolean shownFrightened;
+    private int shownSkirt;
+    private SpriteAtlas atlas;
+    private ImageView pacman;
+    private ImageView[] ghosts;
+    // squares held before the actors last moved, as {row, col}, so that frames can interpolate towards the current ones
+    private int[] previousPacman;
+    private int[][] previousGhosts;
+    private boolean gameOverShown;
+    private PacmanInput bot; // null unless a bot steers pacman instead of the keyboard
+
+    /*
+     * Sets up the graphics for the game on the gamePane with a node for every square, registers the KeyEvent
+     * handler and starts the loop.
+     */
+    public GameRenderer(Game game, Pane gamePane, Label score, Label lives) {
+        this(game, gamePane, score, lives, RenderMode.NODES);
+    }
+
+    /*
+     * Sets up the graphics for the game on the gamePane, drawing the maze as the mode says, registers the KeyEvent
+     * handler and starts the loop.
+     */
+    public GameRenderer(Game game, Pane gamePane, Label score, Label lives, RenderMode mode) {
+        this.game = game;
+        this.gamePane = gamePane;
+        this.scoreLabel = score;
+        this.livesLabel = lives;
+        this.mode = mode;
+        this.game.getEvents().subscribe((event, value, tick) -> this.labelsStale = true);
+        if (mode == RenderMode.CANVAS) {
+            this.setUpCanvases();
+        } else {
+            this.setUpMaze();
+        }
+        this.setUpActors();
+        this.rememberPositions();
+        this.update();
+        this.render(1);
+        this.gamePane.setFocusTraversable(true);
+        this.PacmanTimeline();
+    }
+
+    /*
+    Helper method to set up the maze squares and items graphically using the board the game is played on.
+     */
+    private void setUpMaze() {
+        Board board = this.game.getBoard();
+        this.items = new Circle[board.getRows()][board.getCols()];
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                Rectangle square = new Rectangle(Constants.SQ_WIDTH, Constants.SQ_WIDTH,
+                        board.isWall(row, col) ? Constants.WALL_COLOR : Constants.PATH_COLOR);
+                square.setX(col * Constants.SQ_WIDTH);
+                square.setY(row * Constants.SQ_WIDTH);
+                this.gamePane.getChildren().add(square);
+            }
+        }
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                CS15SquareType type = board.getSquareType(row, col);
+                if (type == CS15SquareType.DOT) {
+                    this.items[row][col] = new Circle(this.centre(col), this.centre(row),
+                            Constants.DOT_RADIUS, Constants.DOT_COLOR);
+                } else if (type == CS15SquareType.ENERGIZER) {
+                    this.items[row][col] = new Circle(this.centre(col), this.centre(row),
+                            Constants.ENERGIZER_RADIUS, Constants.ENERGIZER_COLOR);
+                }
+                if (this.items[row][col] != null) {
+                    this.gamePane.getChildren().add(this.items[row][col]);
+                }
+            }
+        }
+        // every item of the board starts visible
+        this.shownDots = board.getDots().copy();
+        this.shownEnergizers = board.getEnergizers().copy();
+    }
+
+    /*
+    Helper method to draw the maze onto two canvases in canvas mode: the walls once, merging each run of walls in a
+    row into one rectangle, and every item of the board on the layer above.
+     */
+    private void setUpCanvases() {
+        Board board = this.game.getBoard();
+        double width = board.getCols() * Constants.SQ_WIDTH;
+        double height = board.getRows() * Constants.SQ_WIDTH;
+        Canvas walls = new Canvas(width, height);
+        GraphicsContext wallLayer = walls.getGraphicsContext2D();
+        wallLayer.setFill(Constants.PATH_COLOR);
+        wallLayer.fillRect(0, 0, width, height);
+        wallLayer.setFill(Constants.WALL_COLOR);
+        for (int row = 0; row < board.getRows(); row++) {
+            int col = 0;
+            while (col < board.getCols()) {
+                if (!board.isWall(row, col)) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < board.getCols() && board.isWall(row, col)) {
+                    col++;
+                }
+                wallLayer.fillRect(start * Constants.SQ_WIDTH, row * Constants.SQ_WIDTH,
+                        (col - start) * Constants.SQ_WIDTH, Constants.SQ_WIDTH);
+            }
+        }
+        // the walls never change, so JavaFX may keep the layer as a bitmap
+        walls.setCache(true);
+        walls.setMouseTransparent(true);
+
+        Canvas items = new Canvas(width, height);
+        items.setMouseTransparent(true);
+        this.itemLayer = items.getGraphicsContext2D();
+        this.gamePane.getChildren().add(walls);
+        this.gamePane.getChildren().add(items);
+        this.shownDots = board.getDots().copy();
+        this.shownEnergizers = board.getEnergizers().copy();
+        // one fill colour per kind of item, then every item of that kind
+        this.drawItems(this.shownDots, Constants.DOT_RADIUS, Constants.DOT_COLOR);
+        this.drawItems(this.shownEnergizers, Constants.ENERGIZER_RADIUS, Constants.ENERGIZER_COLOR);
+    }
+
+    /*
+    Draws a circle of the given size and colour on the item layer for every square of a bitboard.
+     */
+    private void drawItems(Bitboard squares, double radius, Color color) {
+        Bitboard none = new Bitboard(this.game.getBoard().getSquares());
+        this.itemLayer.setFill(color);
+        for (int square = squares.nextDifference(none, 0); square >= 0;
+                square = squares.nextDifference(none, square + 1)) {
+            this.fillItem(square, radius);
+        }
+    }
+
+    /*
+    Draws one item of the given size, in the current fill colour, at the centre of a packed square.
+     */
+    private void fillItem(int square, double radius) {
+        int cols = this.game.getBoard().getCols();
+        this.itemLayer.fillOval(this.centre(square % cols) - radius, this.centre(square / cols) - radius,
+                radius * 2, radius * 2);
+    }
+
+    /*
+    Redraws the square of an item that appeared or disappeared on the item layer: the square is cleared, then the
+    item the game holds there now, if any, is drawn again.
+     */
+    private void redrawItem(int square) {
+        int cols = this.game.getBoard().getCols();
+        this.itemLayer.clearRect((square % cols) * Constants.SQ_WIDTH, (square / cols) * Constants.SQ_WIDTH,
+                Constants.SQ_WIDTH, Constants.SQ_WIDTH);
+        if (this.game.getDots().get(square)) {
+            this.itemLayer.setFill(Constants.DOT_COLOR);
+            this.fillItem(square, Constants.DOT_RADIUS);
+        } else if (this.game.getEnergizers().get(square)) {
+            this.itemLayer.setFill(Constants.ENERGIZER_COLOR);
+            this.fillItem(square, Constants.ENERGIZER_RADIUS);
+        }
+    }
+
+    /*
+    Helper method to rasterise the sprite atlas and create the pacman and ghost views on it, added last so they show
+    up in front of the items.
+     */
+    private void setUpActors() {
+        this.atlas = new SpriteAtlas(Constants.GHOST_COLORS, Constants.FRIGHTENED_COLOR);
+        this.pacman = new ImageView(this.atlas.getImage());
+        this.pacman.setViewport(this.atlas.pacman(this.game.getDirection(), 0));
+        this.gamePane.getChildren().add(this.pacman);
+        this.ghosts = new ImageView[this.game.getGhosts().length];
+        this.previousPacman = new int[2];
+        this.previousGhosts = new int[this.ghosts.length][2];
+        for (int i = 0; i < this.ghosts.length; i++) {
+            this.ghosts[i] = new ImageView(this.atlas.getImage());
+            this.ghosts[i].setViewport(this.atlas.ghost(this.ghostColor(i), 0));
+            this.gamePane.getChildren().add(this.ghosts[i]);
+        }
+    }
+
+    /*
+    Registers key event handlers and starts the loop, which ticks the game on the fixed tick of its settings,
+    Game.getTickDuration, and renders on every frame in between. A tick shorter than the time to cross a square
+    makes the movement smoother, not faster, since the actors then cross each square over several ticks.
+     */
+    private void PacmanTimeline() {
+        this.gamePane.setOnKeyPressed(this::handleKeyPress);
+        this.loop = new GameLoop(this.game.getTickDuration(), this::tick, this::render);
+        this.loop.start();
+    }
+
+    /*
+    Runs one logic tick. Before a tick the actors move on, a bot, if there is one, presses its key through the same
+    path as the keyboard, and the squares the actors leave are remembered so the following frames can interpolate.
+     */
+    private void tick() {
+        if (this.game.isMoveDue()) {
+            if (this.bot != null) {
+                Direction direction = this.bot.nextInput(this.game);
+                if (direction != null) {
+                    this.game.handleInput(direction);
+                }
+            }
+            this.rememberPositions();
+        }
+        this.game.updateGame();
+        this.update();
+    }
+
+    /*
+    Stores the squares pacman and the ghosts hold before they move.
+     */
+    private void rememberPositions() {
+        Pacman logicalPacman = this.game.getPacman();
+        this.previousPacman[0] = logicalPacman.getRow();
+        this.previousPacman[1] = logicalPacman.getCol();
+        Ghost[] logicalGhosts = this.game.getGhosts();
+        for (int i = 0; i < this.previousGhosts.length; i++) {
+            this.previousGhosts[i][0] = logicalGhosts[i].getRow();
+            this.previousGhosts[i][1] = logicalGhosts[i].getCol();
+        }
+    }
+
+    /*
+    Places pacman and the ghosts part of the way from their previous squares to their current ones: the ticks played
+    since they moved, plus the fraction alpha of the next tick, out of the ticks they take to cross a square. Shows
+    pacman's mouth opening and closing again over the move. Pacman keeps its mouth half open while blocked.
+     */
+    private void render(double alpha) {
+        double fraction = (this.game.getTicksSinceMove() + alpha) / this.game.getTicksPerSquare();
+        Pacman logicalPacman = this.game.getPacman();
+        this.pacman.setX(this.interpolate(this.previousPacman[1], logicalPacman.getCol(), fraction)
+                * Constants.SQ_WIDTH);
+        this.pacman.setY(this.interpolate(this.previousPacman[0], logicalPacman.getRow(), fraction)
+                * Constants.SQ_WIDTH);
+        int mouth = SpriteAtlas.MOUTH_FRAMES / 2;
+        if (this.previousPacman[0] != logicalPacman.getRow() || this.previousPacman[1] != logicalPacman.getCol()) {
+            // closed, widening to the widest halfway across the square, then closing again
+            int steps = 2 * (SpriteAtlas.MOUTH_FRAMES - 1);
+            int step = Math.min((int) (fraction * steps), steps);
+            mouth = Math.min(step, steps - step);
+        }
+        this.pacman.setViewport(this.atlas.pacman(this.game.getDirection(), mouth));
+
+        Ghost[] logicalGhosts = this.game.getGhosts();
+        for (int i = 0; i < this.ghosts.length; i++) {
+            this.ghosts[i].setX(this.interpolate(this.previousGhosts[i][1], logicalGhosts[i].getCol(), fraction)
+                    * Constants.SQ_WIDTH);
+            this.ghosts[i].setY(this.interpolate(this.previousGhosts[i][0], logicalGhosts[i].getRow(), fraction)
+                    * Constants.SQ_WIDTH);
+        }
+    }
+
+    /*
+    Returns the row or column a fraction of the way from a previous to a current index. Actors that jumped more than
+    one square (through the tunnel, back to the pen or to a new life) are drawn at their current square straight away.
+     */
+    private double interpolate(int previous, int current, double fraction) {
+        if (Math.abs(current - previous) > 1) {
+            return current;
+        }
+        return previous + (current - previous) * fraction;
+    }
+
+    /*
+    Lets a bot steer pacman on every following square, or gives pacman back to the keyboard when passed null.
+     */
+    public void setBot(PacmanInput bot) {
+        this.bot = bot;
+    }
+
+    /*
+     * Handles key input by passing the direction of the up, down, left, and right arrow keys to the game.
+     */
+    private void handleKeyPress(KeyEvent e) {
+        KeyCode keyPressed = e.getCode();
+        switch (keyPressed) {
+            case LEFT:
+                this.game.handleInput(Direction.LEFT);
+                break;
+            case RIGHT:
+                this.game.handleInput(Direction.RIGHT);
+                break;
+            case DOWN:
+                this.game.handleInput(Direction.DOWN);
+                break;
+            case UP:
+                this.game.handleInput(Direction.UP);
+                break;
+        }
+    }
+
+    /*
+    Helper method that returns the index in GHOST_COLORS of the colour of a ghost, which follows its role when
+    there are more than four ghosts.
+     */
+    private int ghostColor(int ghost) {
+        return ghost % Constants.GHOST_COLORS.length;
+    }
+
+    /*
+    Moves every shape to the state held by the game after a tick: ghost frames, items that have
+    been eaten, the labels and the game over message. Only what differs from the state shown after the previous
+    tick is pushed to the nodes. Positions are set by render on every frame. Shapes are never recreated, so the
+    number of nodes in the gamePane stays the same across lives.
+     */
+    private void update() {
+        boolean frightened = this.game.getFrightMode();
+        int skirt = this.game.getTick() / this.game.getTicksPerSquare() % SpriteAtlas.SKIRT_FRAMES;
+        if (frightened != this.shownFrightened || skirt != this.shownSkirt) {
+            for (int i = 0; i < this.ghosts.length; i++) {
+                this.ghosts[i].setViewport(frightened ? this.atlas.frightenedGhost(skirt)
+                        : this.atlas.ghost(this.ghostColor(i), skirt));
+            }
+            this.shownFrightened = frightened;
+            this.shownSkirt = skirt;
+        }
+
+        this.updateItems(this.shownDots, this.game.getDots());
+        this.updateItems(this.shownEnergizers, this.game.getEnergizers());
+
+        if (this.labelsStale) {
+            this.scoreLabel.setText(Constants.SCORE_LABEL_TEXT + this.game.getScore());
+            this.livesLabel.setText(Constants.LIVES_LABEL_TEXT + this.game.getLives());
+            this.labelsStale = false;
+        }
+        if (this.game.getStatus() != GameStatus.PLAYING && !this.gameOverShown) {
+            this.gameOver(this.game.getStatus() == GameStatus.WON
+                    ? Constants.GAME_WON_LABEL_TEXT : Constants.GAME_OVER_LABEL_TEXT);
+        }
+    }
+
+    /*
+    Shows or hides the items of the squares where the shown layer and the game's layer differ, or redraws those
+    squares in canvas mode, then brings the shown layer up to date.
+     */
+    private void updateItems(Bitboard shown, Bitboard current) {
+        int cols = this.game.getBoard().getCols();
+        for (int square = shown.nextDifference(current, 0); square >= 0;
+                square = shown.nextDifference(current, square + 1)) {
+            if (this.mode == RenderMode.CANVAS) {
+                this.redrawItem(square);
+                continue;
+            }
+            Circle item = this.items[square / cols][square % cols];
+            if (item != null) {
+                item.setVisible(current.get(square));
+            }
+        }
+        shown.copyFrom(current);
+    }
+
+    /*
+    Handles game over set up by stopping the loop and creating graphical set up for label, passing
+    in text for label ("winner!" or "game over") as a parameter.
+     */
+    private void gameOver(String labelText) {
+        this.gameOverShown = true;
+        this.loop.stop();
+        Label label = new Label(labelText);
+        VBox labelBox = new VBox(label);
+        labelBox.setAlignment(Pos.CENTER);
+        labelBox.setPrefHeight(this.gamePane.getHeight());
+        labelBox.setPrefWidth(this.gamePane.getWidth());
+        label.setStyle(Constants.GAME_OVER_LABEL_STYLE);
+        this.gamePane.getChildren().add(labelBox);
+    }
+
+    /*
+    Converts a row or column index, possibly between two squares, to the pixel coordinate of the centre of
+    that square.
+     */
+    private double centre(double index) {
+        return (index * Constants.SQ_WIDTH) + Constants.SQ_OFFSET;
+    }
+}
@@ -0,0 +1,174 @@
+package pacman;
+
+/**
+ * Holds the tunable quantities of one game. A new instance starts with the values in Constants, and the batch
+ * simulator overrides them to compare different tunings without recompiling.
+ *
+ * The mode limits and the pen count are in seconds of play. The game counts them in ticks of the tick duration,
+ * which must split the Constants.TIMELINE_DURATION seconds an actor takes to cross a square into whole ticks: with
+ * the default of one tick per square actors move a square every tick, and with shorter ticks they cross a square over
+ * several, so the speed of the game and the length of the modes stay the same while input is read and the modes
+ * switch more often.
+ */
+public class GameSettings {
+
+    private static final double TICK_TOLERANCE = 1e-9;
+
+    private double chaseLimit;
+    private double scatterLimit;
+    private double frightenedLimit;
+    private double penCount;
+    private PathingMode pathingMode;
+    private int ghostCount;
+    private CollisionMode collisionMode;
+    private RandomMode randomMode;
+    private double tickDuration;
+
+    /*
+    Constructs settings with the default values from Constants.
+     */
+    public GameSettings() {
+        this.chaseLimit = Constants.CHASE_LIMIT;
+        this.scatterLimit = Constants.SCATTER_LIMIT;
+        this.frightenedLimit = Constants.FRIGHTENED_LIMIT;
+        this.penCount = Constants.PEN_COUNT;
+        this.pathingMode = PathingMode.CLASSIC;
+        this.ghostCount = Constants.GHOST_COUNT;
+        this.collisionMode = CollisionMode.SQUARE;
+        this.randomMode = RandomMode.PER_GHOST;
+        this.tickDuration = Constants.TIMELINE_DURATION;
+    }
+
+    public double getChaseLimit() {
+        return this.chaseLimit;
+    }
+
+    public void setChaseLimit(double chaseLimit) {
+        this.chaseLimit = chaseLimit;
+    }
+
+    public double getScatterLimit() {
+        return this.scatterLimit;
+    }
+
+    public void setScatterLimit(double scatterLimit) {
+        this.scatterLimit = scatterLimit;
+    }
+
+    public double getFrightenedLimit() {
+        return this.frightenedLimit;
+    }
+
+    public void setFrightenedLimit(double frightenedLimit) {
+        this.frightenedLimit = frightenedLimit;
+    }
+
+    /*
+    Getter method to return the time in seconds between two ghosts leaving the pen.
+     */
+    public double getPenCount() {
+        return this.penCount;
+    }
+
+    public void setPenCount(double penCount) {
+        this.penCount = penCount;
+    }
+
+    /*
+    Getter method to return how ghosts choose their direction in chase and scatter mode.
+     */
+    public PathingMode getPathingMode() {
+        return this.pathingMode;
+    }
+
+    public void setPathingMode(PathingMode pathingMode) {
+        this.pathingMode = pathingMode;
+    }
+
+    /*
+    Getter method to return the number of ghosts, which take the roles of inky, clyde, pinky and blinky in turn.
+     */
+    public int getGhostCount() {
+        return this.ghostCount;
+    }
+
+    /*
+    Sets the number of ghosts. Throws IllegalArgumentException for a negative count.
+     */
+    public void setGhostCount(int ghostCount) {
+        if (ghostCount < 0) {
+            throw new IllegalArgumentException("The number of ghosts cannot be negative: " + ghostCount);
+        }
+        this.ghostCount = ghostCount;
+    }
+
+    /*
+    Getter method to return how the game finds what pacman collides with.
+     */
+    public CollisionMode getCollisionMode() {
+        return this.collisionMode;
+    }
+
+    public void setCollisionMode(CollisionMode collisionMode) {
+        this.collisionMode = collisionMode;
+    }
+
+    /*
+    Getter method to return where frightened ghosts draw their random moves from.
+     */
+    public RandomMode getRandomMode() {
+        return this.randomMode;
+    }
+
+    public void setRandomMode(RandomMode randomMode) {
+        this.randomMode = randomMode;
+    }
+
+    /*
+    Getter method to return the seconds of play one tick of the game stands for.
+     */
+    public double getTickDuration() {
+        return this.tickDuration;
+    }
+
+    /*
+    Sets the seconds of play one tick stands for, which games created afterwards keep. Throws
+    IllegalArgumentException unless the time an actor takes to cross a square is a whole number of such ticks.
+     */
+    public void setTickDuration(double tickDuration) {
+        long ticks = Math.round(Constants.TIMELINE_DURATION / tickDuration);
+        if (!(tickDuration > 0) || ticks < 1
+                || Math.abs(ticks * tickDuration - Constants.TIMELINE_DURATION) > TICK_TOLERANCE) {
+            throw new IllegalArgumentException("A tick must split the " + Constants.TIMELINE_DURATION
+                    + " s an actor takes to cross a square into whole ticks: " + tickDuration);
+        }
+        this.tickDuration = tickDuration;
+    }
+
+    /*
+    Returns the number of ticks an actor takes to cross a square.
+     */
+    public int getTicksPerSquare() {
+        return (int) Math.round(Constants.TIMELINE_DURATION / this.tickDuration);
+    }
+
+    /*
+    Returns a time in seconds as a number of ticks of the given duration, which the game's counters are compared
+    with. A time within rounding error of a whole number of ticks counts as exactly that many, so that limits
+    written as a number of ticks and converted to seconds give the same games as before.
+     */
+    static double inTicks(double seconds, double tickDuration) {
+        double ticks = seconds / tickDuration;
+        double whole = Math.rint(ticks);
+        return Math.abs(ticks - whole) < TICK_TOLERANCE ? whole : ticks;
+    }
+
+    @Override
+    public String toString() {
+        return "chase=" + this.chaseLimit + " scatter=" + this.scatterLimit
+                + " frightened=" + this.frightenedLimit + " pen=" + this.penCount
+                + " pathing=" + this.pathingMode.name().toLowerCase() + " ghosts=" + this.ghostCount
+                + " collisions=" + this.collisionMode.name().toLowerCase()
+                + " random=" + this.randomMode.name().toLowerCase() + " tick=" + this.tickDuration;
+    }
+}
@@ -0,0 +1,225 @@
+package pacman;
+
+/**
+ * Immutable copy of everything a game needs to carry on from a tick, taken with Game.snapshot and put back with
+ * Game.restore. A game restored from a snapshot plays on exactly as the game did from the moment it was taken,
+ * given the same inputs, which is what rewinding, searching ahead and checkpointing long batch runs need.
+ *
+ * The state is kept compact: every actor is one int, packing its square (see Board.squareIndex) with its direction,
+ * the items are copies of the game's bitboards, the random number generators are their states, and the pen and the
+ * occupancy index are arrays of ghost slots. The board and the settings are not copied, since they never change
+ * during a game, so a snapshot can only be restored into a game on the same board with the same number of ghosts and
+ * the same random mode and ticks per square, which restore checks against the board's dimensions and walls, the
+ * random mode and the ticks per square kept here. Snapshots are taken between ticks, when no events are waiting on
+ * the bus. Nothing here refers to a renderer, which redraws from the restored game on its next frame.
+ */
+public final class GameSnapshot {
+
+    // direction codes, with 0 standing for no direction (a ghost that found no move)
+    static final int DIRECTION_BITS = 3;
+    private static final int DIRECTION_MASK = (1 << DIRECTION_BITS) - 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int rows;
+    private final int cols;
+    private final Bitboard walls; // the board's own walls, which never change, so not a copy
+    private final RandomMode randomMode;
+    private final int ticksPerSquare;
+    private final int tick;
+    private final int ticksSinceMove;
+    private final int pacman; // pacman's square and the direction it is moving in
+    private final int[] ghosts; // each ghost's square and current direction, in the order of the game
+    private final int[] pen; // slots of the ghosts waiting in the pen, first to leave first
+    /*
+    Slots of the ghosts registered in the occupancy index, in an order that registers them again in the same order
+    within every square, so that the same ghost collides first. Ghosts taken out of a square by a collision are missing.
+     */
+    private final int[] occupancy;
+    private final int counter;
+    private final int countFright;
+    private final double counterPen;
+    private final boolean frightMode;
+    private final int score;
+    private final int lives;
+    private final GameStatus status;
+    private final long random; // state of the game's generator
+    private final long[] ghostRandom; // state of each ghost's generator, in the order of the game
+    private final Bitboard dots;
+    private final Bitboard energizers;
+    private final long recording; // id of the InputRecorder attached when the snapshot was taken, or 0 for none
+    private final int recordedInputs; // number of inputs that recorder had recorded
+
+    GameSnapshot(Board board, RandomMode randomMode, int ticksPerSquare, int tick, int ticksSinceMove, int pacman,
+                 int[] ghosts, int[] pen, int[] occupancy, int counter, int countFright, double counterPen,
+                 boolean frightMode, int score, int lives, GameStatus status, long random, long[] ghostRandom,
+                 Bitboard dots, Bitboard energizers, long recording, int recordedInputs) {
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.walls = board.getWalls();
+        this.randomMode = randomMode;
+        this.ticksPerSquare = ticksPerSquare;
+        this.tick = tick;
+        this.ticksSinceMove = ticksSinceMove;
+        this.pacman = pacman;
+        this.ghosts = ghosts;
+        this.pen = pen;
+        this.occupancy = occupancy;
+        this.counter = counter;
+        this.countFright = countFright;
+        this.counterPen = counterPen;
+        this.frightMode = frightMode;
+        this.score = score;
+        this.lives = lives;
+        this.status = status;
+        this.random = random;
+        this.ghostRandom = ghostRandom;
+        this.dots = dots;
+        this.energizers = energizers;
+        this.recording = recording;
+        this.recordedInputs = recordedInputs;
+    }
+
+    /*
+    Packs a square and a direction, which may be null, into one int.
+     */
+    static int pack(int square, Direction direction) {
+        return square << DIRECTION_BITS | (direction == null ? 0 : direction.ordinal() + 1);
+    }
+
+    /*
+    Returns the square of a packed actor.
+     */
+    static int square(int actor) {
+        return actor >>> DIRECTION_BITS;
+    }
+
+    /*
+    Returns the direction of a packed actor, or null when it has none.
+     */
+    static Direction direction(int actor) {
+        int code = actor & DIRECTION_MASK;
+        return code == 0 ? null : DIRECTIONS[code - 1];
+    }
+
+    /*
+    Returns whether the snapshot was taken from a game on a board of the same dimensions and walls as the given one.
+     */
+    boolean isOf(Board board) {
+        return this.rows == board.getRows() && this.cols == board.getCols()
+                && (this.walls == board.getWalls() || this.walls.equals(board.getWalls()));
+    }
+
+    /*
+    Getter methods read by Game.restore. The arrays and bitboards are only read, never handed out.
+     */
+    int getRows() {
+        return this.rows;
+    }
+
+    int getCols() {
+        return this.cols;
+    }
+
+    RandomMode getRandomMode() {
+        return this.randomMode;
+    }
+
+    int getTicksPerSquare() {
+        return this.ticksPerSquare;
+    }
+
+    int getTicksSinceMove() {
+        return this.ticksSinceMove;
+    }
+
+    int getPacman() {
+        return this.pacman;
+    }
+
+    int getGhostCount() {
+        return this.ghosts.length;
+    }
+
+    int getGhost(int slot) {
+        return this.ghosts[slot];
+    }
+
+    int getPenSize() {
+        return this.pen.length;
+    }
+
+    int getPenGhost(int index) {
+        return this.pen[index];
+    }
+
+    int getOccupancySize() {
+        return this.occupancy.length;
+    }
+
+    int getOccupancyGhost(int index) {
+        return this.occupancy[index];
+    }
+
+    int getCounter() {
+        return this.counter;
+    }
+
+    int getCountFright() {
+        return this.countFright;
+    }
+
+    double getCounterPen() {
+        return this.counterPen;
+    }
+
+    boolean getFrightMode() {
+        return this.frightMode;
+    }
+
+    long getRandom() {
+        return this.random;
+    }
+
+    long getGhostRandom(int slot) {
+        return this.ghostRandom[slot];
+    }
+
+    Bitboard getDots() {
+        return this.dots;
+    }
+
+    Bitboard getEnergizers() {
+        return this.energizers;
+    }
+
+    long getRecording() {
+        return this.recording;
+    }
+
+    int getRecordedInputs() {
+        return this.recordedInputs;
+    }
+
+    /*
+    Public getters for what a search or a rewind screen needs to compare snapshots without restoring them.
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getLives() {
+        return this.lives;
+    }
+
+    public GameStatus getStatus() {
+        return this.status;
+    }
+
+    public int getRemainingItems() {
+        return this.dots.popCount() + this.energizers.popCount();
+    }
+}
@@ -0,0 +1,8 @@
+package pacman;
+
+/**
+ * Enum to represent the status of a game, with values PLAYING, WON and LOST.
+ */
+public enum GameStatus {
+    PLAYING, WON, LOST;
+}
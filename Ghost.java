@@ -1,78 +1,117 @@
 package pacman;
 
 /**
- * Represents the ghost as a collideable rectangle that can change direction,
+ * Represents the ghost as a collideable row and column that can change direction,
  * move with BFS or with random direction, collide with pacman and return a score.
  */
-import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import java.lang.Math;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.ArrayList;
 
 public class Ghost implements Collideable{
-    private Pane gamePane;
-    private Rectangle rect;
-    private MazeSquare[][] maze;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private Board board;
+    private Bitboard walls;
     private Game game;
+    private int slot; // index of the ghost in the game, which is also its slot in the occupancy index
+    private int row;
+    private int col;
     /*
     Keeps track of direction currently moving in to account for wrapping when the ghost
     must continue to move in the same direction, updated in BFS.
      */
     private Direction currDirection;
-    private Direction[][] directions; // 2D array of directions that represent the whole maze
-    private Color color; // keeps track of original colour so ghost can turn back to its colour after frightened.
+    /*
+    Scratch buffers reused by every BFS so that a search allocates nothing. Squares are packed as
+    row * cols + col (see Board.squareIndex). A square has a direction assigned in the current search only when its epoch
+    equals the search epoch, so the directions never need clearing between searches.
+     */
+    private byte[] directions; // direction ordinal assigned to each square of the whole maze
+    private int[] epochs;
+    private int epoch;
+    private int[] queue; // ring buffer of packed squares
+    private int queueHead;
+    private int queueSize;
+    private Direction[] validDirections; // scratch for the random direction in frightened mode
+    private HierarchicalPathfinder.Search search; // created on the first decision in hierarchical pathing mode
+    private Direction decision; // the direction chosen by decide, waiting to be applied by commitMove
+    private GameRandom random; // the ghost's own generator for frightened moves, split off the game's
 
-    public Ghost(Pane gamePane, Color ghostColor, Game game) {
-        this.gamePane = gamePane;
-        this.rect = new Rectangle(Constants.SQ_WIDTH, Constants.SQ_WIDTH);
-        this.rect.toFront();
+    public Ghost(Game game, int slot) {
         this.game = game;
-        this.color = ghostColor;
-        this.setColor();
+        this.slot = slot;
         this.currDirection = Direction.UP; // initialise the direction of the ghosts to move upwards
-        this.maze = this.game.returnMazeArray(); // ghosts must move in the same maze that we build in the game class
-        gamePane.getChildren().add(this.rect);
+        this.board = this.game.getBoard();
+        this.walls = this.board.getWalls();
+        this.directions = new byte[this.board.getSquares()];
+        this.epochs = new int[this.board.getSquares()];
+        this.queue = new int[this.board.getSquares()];
+        this.validDirections = new Direction[DIRECTIONS.length];
+        this.random = this.game.getRandom().split();
     }
 
     /*
-    Changes the colour of the ghost depending on whether frightened mode is activated.
+    Setter method which takes in two parameters to set row and column location all at once.
      */
-    private void setColor() {
-        if (this.game.getFrightMode()) {
-            this.rect.setFill(Color.BLUE);
-        }
-        else {
-            this.rect.setFill(color);
-        }
+    public void setGhostLoc(int row, int col) {
+        this.row = row;
+        this.col = col;
+    }
+
+    /*
+    Moves the ghost back to a starting square facing upwards, as when it was first constructed.
+     */
+    public void respawn(int row, int col) {
+        this.setGhostLoc(row, col);
+        this.currDirection = Direction.UP;
+    }
+
+    /*
+    Puts the ghost on a square facing a direction, which may be null, when the game is restored from a snapshot.
+     */
+    void restore(int row, int col, Direction direction) {
+        this.setGhostLoc(row, col);
+        this.currDirection = direction;
+    }
+
+    /*
+    Getter method for the generator the ghost draws its frightened moves from, which the game restores and reseeds
+    in place.
+     */
+    GameRandom getRandom() {
+        return this.random;
     }
 
     /*
-    Setter method which takes in two parameters to set x and y location all at once.
+    Getter method to return the direction the ghost last moved in, or null when it found no move.
      */
-    public void setGhostLoc(double xLoc, double yLoc) {
-        this.rect.setX(xLoc);
-        this.rect.setY(yLoc);
+    public Direction getCurrDirection() {
+        return this.currDirection;
     }
 
     /*
-    Getter method to convert x coordinate to column and return this index.
+    Getter method to return the index of the ghost in the game.
      */
-    private int getGhostCol() {
-        return (int) this.rect.getX()/Constants.SQ_WIDTH;
+    public int getSlot() {
+        return this.slot;
     }
 
     /*
-    Getter method to convert y coordinate to row and return this index.
+    Getter method to return the column index of the ghost.
+     */
+    public int getCol() {
+        return this.col;
+    }
+
+    /*
+    Getter method to return the row index of the ghost.
     */
-    private int getGhostRow() { return (int) this.rect.getY()/Constants.SQ_WIDTH; }
+    public int getRow() { return this.row; }
 
     /*
     We use override to define the collide method declared in collideable interface since ghost is a collideable object.
     If in frightened mode, then ghost returns to the pen and game score increases.
-    In any other mode, the ghost causes pacman to lose a life and game resets.
+    In any other mode, the ghost causes pacman to lose a life and game resets. The actors move at once, because the
+    rest of the tick plays on from there; the score and the life follow from the published event.
      */
     @Override
     public void collide() {
@@ -80,10 +119,11 @@ public class Ghost implements Collideable{
         if (this.game.getFrightMode()) {
             // pacman eats ghost and ghost returns to ghost pen.
             this.game.addToPen(this);
-            this.game.updateScore(0, Constants.GHOST_SCORE);
+            this.game.getEvents().publish(GameEvent.GHOST_EATEN, this.slot, this.game.getTick());
         }
         else {
             // pacman loses a life and the game resets
+            this.game.getEvents().publish(GameEvent.PACMAN_CAUGHT, this.slot, this.game.getTick());
             this.game.reset();
         }
     }
@@ -95,96 +135,200 @@ public class Ghost implements Collideable{
     location to the target, and updates the direction accordingly if this distance is the shortest.
      */
     public Direction ghostBFS(BoardCoordinate target) {
+        return this.ghostBFS(target.getRow(), target.getColumn());
+    }
+
+    /*
+    BFS towards a target given as a row and column. The queue and the directions are the ghost's scratch
+    buffers, so no objects are created during the search.
+     */
+    public Direction ghostBFS(int targetRow, int targetCol) {
         // set to very large threshold so that minimum distance is immediately updated.
         int minDistance = Constants.MIN_DISTANCE;
         // initialise the direction as null
         Direction direction = null;
-        // initialize 2D array of directions
-        this.directions = new Direction[Constants.MAZE_DIMENSION][Constants.MAZE_DIMENSION];
-        // initialize the queue
-        Queue<BoardCoordinate> queue = new LinkedList<>();
-        // access ghost x and y location and store as local variables
-        int row = this.getGhostRow();
-        int col = this.getGhostCol();
+        // access ghost row and column and store as local variables
+        int row = this.row;
+        int col = this.col;
         /*
          account for wrapping by first checking whether location is within the board, otherwise
          this would cause a null pointer exception, so order matters.
          */
-        if(!(col > 0 && col < 22)) {
+        if(!(col > 0 && col < this.board.getCols() - 1)) {
             return this.wrapGhost(row, col);
         }
-        // access current location
-        BoardCoordinate currentLoc = new BoardCoordinate(row, col , true);
+        // start a new search: moving to a new epoch forgets every direction assigned by the previous one
+        this.startSearch();
         // the first initial neighbours will be directly assigned a direction, so pass in true boolean variable
-        this.addValidNeighbour(currentLoc, true, queue);
+        this.addValidNeighbour(row, col, true);
         // as long as the queue is not empty, keeps adding new neighbours and updating the minimum distance
-        while(!queue.isEmpty()) {
-            // dequeue current location, the oldest BC added to the queue
-            BoardCoordinate newLoc =  queue.remove();
+        while(this.queueSize > 0) {
+            // dequeue current location, the oldest square added to the queue
+            int newLoc = this.dequeue();
+            int newRow = newLoc / this.board.getCols();
+            int newCol = newLoc % this.board.getCols();
             // calculate distance to target using euclidean geometry
-            double distanceX = newLoc.getColumn()*Constants.SQ_WIDTH - target.getColumn()*Constants.SQ_WIDTH ;
-            double distanceY = newLoc.getRow()*Constants.SQ_WIDTH - target.getRow()*Constants.SQ_WIDTH ;
-            // access direction that was assigned to current location
-            Direction curDirection = this.directions[newLoc.getRow()][newLoc.getColumn()];
+            double distanceX = newCol*Constants.SQ_WIDTH - targetCol*Constants.SQ_WIDTH ;
+            double distanceY = newRow*Constants.SQ_WIDTH - targetRow*Constants.SQ_WIDTH ;
 
             double distance = Math.sqrt((distanceX * distanceX) + (distanceY * distanceY));
             // see if distance < min distance
             if (distance < minDistance) {
                 // update the minimum distance to this new minimum
                 minDistance = (int) distance;
-                // update the direction
-                direction = curDirection;
+                // update the direction to the one that was assigned to current location
+                direction = DIRECTIONS[this.directions[newLoc]];
             }
             // for all other neighbours, we just assign direction of previous square, so pass in false boolean variable
-            this.addValidNeighbour(currentLoc, false, queue);
+            this.addValidNeighbour(row, col, false);
         }
         // update the current direction of ghost and return direction
         this.currDirection = direction;
         return direction;
     }
 
+    /*
+    Returns the direction the BFS would choose for the given target by reading it from the path table that the
+    game builds once for the maze. Wrapping squares and targets the table does not store still run the BFS.
+    In hierarchical pathing mode the ghost follows a shortest path instead, and in flow field mode it reads its move
+    from the field the game shares between ghosts with the same target; both use the classic rule only where they
+    find no move. Inside a corridor every rule can only go on, so the ghost does that without consulting any of them
+    and decisions are only made on junctions.
+     */
+    private Direction chooseDirection(int targetRow, int targetCol) {
+        int row = this.row;
+        int col = this.col;
+        if (col > 0 && col < this.board.getCols() - 1) {
+            Direction onlyMove = this.onlyMove(this.board.squareIndex(row, col));
+            if (onlyMove != null) {
+                this.currDirection = onlyMove;
+                return onlyMove;
+            }
+        }
+        if (this.game.getSettings().getPathingMode() == PathingMode.HIERARCHICAL
+                && col > 0 && col < this.board.getCols() - 1) {
+            if (this.search == null) {
+                this.search = this.board.getPathfinder().new Search();
+            }
+            Direction direction = this.search.nextDirection(row, col, this.currDirection, targetRow, targetCol);
+            if (direction != null) {
+                this.currDirection = direction;
+                return direction;
+            }
+        }
+        if (this.game.getSettings().getPathingMode() == PathingMode.FLOW_FIELD
+                && col > 0 && col < this.board.getCols() - 1) {
+            Direction direction = this.game.getFlowField(targetRow, targetCol)
+                    .nextDirection(row, col, this.currDirection);
+            if (direction != null) {
+                this.currDirection = direction;
+                return direction;
+            }
+        }
+        GhostPathTable pathTable = this.game.getPathTable();
+        if (pathTable == null || !pathTable.covers(row, col, targetRow, targetCol)) {
+            return this.ghostBFS(targetRow, targetCol);
+        }
+        Direction direction = pathTable.nextDirection(row, col, this.currDirection, targetRow, targetCol);
+        this.currDirection = direction;
+        return direction;
+    }
+
+    /*
+    Returns the only direction the ghost may move in from a packed square that is not a junction, or null when the
+    square is a junction or the ghost has more than one way to go (when it does not face along the corridor).
+    With a single move every rule agrees whatever the target or the mode, so no cached path ever needs clearing.
+     */
+    private Direction onlyMove(int square) {
+        if (this.board.isJunction(square) || this.currDirection == null) {
+            return null;
+        }
+        Direction onlyMove = null;
+        for (Direction direction : DIRECTIONS) {
+            if (direction != this.currDirection.opposite() && this.board.neighbour(square, direction) >= 0) {
+                if (onlyMove != null) {
+                    return null;
+                }
+                onlyMove = direction;
+            }
+        }
+        return onlyMove;
+    }
+
     /*
     Helper method to determine whether neighbours are valid, given a current location. Pass in a boolean variable
     to change what happens when we assign a direction: for all secondary neighbours, just assign direction
-    that was assigned to previous neighbour. Associate the queue initialised in BFS method.
+    that was assigned to previous neighbour. Valid neighbours are added to the ghost's queue.
      */
-    private void addValidNeighbour(BoardCoordinate currentLoc, Boolean isInitial, Queue<BoardCoordinate> queue) {
-        // stores row and column index for the location passed in as local variables
-        int row = currentLoc.getRow();
-        int col = currentLoc.getColumn();
-
+    private void addValidNeighbour(int row, int col, boolean isInitial) {
         // to account for wrapping, only loop through directions when the square is within the board, avoids array out of bounds.
-        if (col > 0 && col < 22) {
+        if (col > 0 && col < this.board.getCols() - 1) {
             /*
             We can loop through every value for direction stored in enum class, so that we can check every direction with one condition.
              */
-            for (Direction direction : Direction.values()) {
+            for (Direction direction : DIRECTIONS) {
+                int newLoc = this.board.squareIndex(direction.newRow(row), direction.newCol(col));
                 // a neighbour is valid if (1) not a wall, (2) not in opposite direction, (3) no direction has yet been assigned.
-                if (this.maze[direction.newRow(row)][direction.newCol(col)].getColor() == Color.BLACK
-                        && this.currDirection != direction.opposite()  && this.directions[direction.newRow(row)][direction.newCol(col)] == null) {
+                if (!this.walls.get(newLoc)
+                        && this.currDirection != direction.opposite()  && this.epochs[newLoc] != this.epoch) {
+                    this.epochs[newLoc] = this.epoch;
                     if (isInitial) {
-                        this.directions[direction.newRow(row)][direction.newCol(col)] = direction;
+                        this.directions[newLoc] = (byte) direction.ordinal();
                     } else {
-                        this.directions[direction.newRow(row)][direction.newCol(col)] = this.directions[row][col];
+                        this.directions[newLoc] = this.directions[this.board.squareIndex(row, col)];
                     }
-                    // add the valid board coordinate to the queue
-                    queue.add(new BoardCoordinate(direction.newRow(row), direction.newCol(col), true));
+                    // add the valid square to the queue
+                    this.enqueue(newLoc);
                 }
             }
         }
     }
 
+    /*
+    Empties the queue and moves to a new search epoch. When the epoch counter wraps around, the epochs are
+    cleared once so that stale values can never match.
+     */
+    private void startSearch() {
+        this.queueHead = 0;
+        this.queueSize = 0;
+        this.epoch++;
+        if (this.epoch == 0) {
+            java.util.Arrays.fill(this.epochs, 0);
+            this.epoch = 1;
+        }
+    }
+
+    /*
+    Adds a packed square to the back of the ring buffer. Each square is enqueued at most once per search, so the
+    buffer never overflows.
+     */
+    private void enqueue(int square) {
+        this.queue[(this.queueHead + this.queueSize) % this.queue.length] = square;
+        this.queueSize++;
+    }
+
+    /*
+    Removes and returns the packed square at the front of the ring buffer.
+     */
+    private int dequeue() {
+        int square = this.queue[this.queueHead];
+        this.queueHead = (this.queueHead + 1) % this.queue.length;
+        this.queueSize--;
+        return square;
+    }
+
     /*
     Handles wrapping which is called earlier in BFS method to return the direction that ghost should continue
     to move in given its position in row and column. Ghost should only wrap when at the row where tunnel is located.
      */
     private Direction wrapGhost(int row, int col) {
-        if (col == 0 && row == Constants.TUNNEL_ROW) {
-            this.rect.setX(Constants.RIGHT_EXTREMA * Constants.SQ_WIDTH);
+        int rightExtrema = this.board.getCols() - 1;
+        if (col == 0 && row == this.board.getTunnelRow()) {
+            this.col = rightExtrema;
             return Direction.LEFT;
         }
-        else if (col == Constants.RIGHT_EXTREMA && row == Constants.TUNNEL_ROW) {
-            this.rect.setX(0);
+        else if (col == rightExtrema && row == this.board.getTunnelRow()) {
+            this.col = 0;
             return Direction.RIGHT;
         }
         // if neither condition returns true, then ghost should continue to move in the same direction.
@@ -192,41 +336,49 @@ public class Ghost implements Collideable{
     }
 
     /*
-    Method called in timeline to continuously generate direction for ghost movement. The ghost is removed from
-    the square's array list to handle logical movement, then a direction is assigned through calling
-    BFS or a random direction if in frightened mode, and the direction generated is passed into move method.
+    Method called in timeline to continuously generate direction for ghost movement. A direction is assigned
+    through calling BFS or a random direction if in frightened mode, then the ghost moves from its square to
+    the next one. The target is ignored in frightened mode.
      */
-    public void generateDirection(BoardCoordinate target) {
-        // get ghost's initial location before making a move
-        int row = this.getGhostRow();
-        int col = this.getGhostCol();
-
-        // as ghosts moves, remove the ghost from array list of collideables from current square
-        this.maze[row][col].removeCollideable(this);
+    public void generateDirection(int targetRow, int targetCol) {
+        this.decide(targetRow, targetCol);
+        this.commitMove();
+    }
 
+    /*
+    First half of generateDirection: chooses the direction to move in. Only the ghost's own fields are written, and
+    nothing of the game is read apart from the immutable board, the settings and flow fields that are not changed
+    while ghosts decide, so the ghosts of one game can decide on several threads at once. Frightened moves are drawn
+    from the ghost's own generator, so they can too unless the ghosts share the game's (RandomMode.SHARED).
+     */
+    void decide(int targetRow, int targetCol) {
         Direction direction;
         if (this.game.getFrightMode()) {
-            // in Frightened mode, move in a random direction and change ghost colour to blue
-            direction = this.generateRandomDirection(row, col);
-            this.rect.setFill(Color.BLUE);
+            // in Frightened mode, move in a random direction
+            direction = this.generateRandomDirection(this.row, this.col);
         }
-        else { // in scatter or chase mode, move with BFS and return to original property colour
-            direction = this.ghostBFS(target);
-            this.rect.setFill(color);
+        else { // in scatter or chase mode, move with BFS
+            direction = this.chooseDirection(targetRow, targetCol);
         }
-        // update ghost's direction and call move method to move in this direction.
-        this.currDirection = direction;
-        this.moveGhost(direction);
+        this.decision = direction;
+    }
 
-        // get ghost's new location after completing its move
-        row = this.getGhostRow();
-        col = this.getGhostCol();
-        // then, add the ghost to array list of collideables of new square it has just moved into. This enforces ghost collisions
-        this.maze[row][col].addCollideable(this);
+    /*
+    Second half of generateDirection: moves the ghost in the direction chosen by decide, taking it out of the
+    square it left in the game's occupancy index and registering it in the one it moves into. This enforces ghost
+    collisions, and is always done one ghost at a time in a fixed order.
+     */
+    void commitMove() {
+        OccupancyIndex occupancy = this.game.getOccupancy();
+        occupancy.remove(this.slot);
+        // update ghost's direction and call move method to move in this direction.
+        this.currDirection = this.decision;
+        this.moveGhost(this.decision);
+        occupancy.add(this.slot, this.board.squareIndex(this.row, this.col));
     }
 
     /*
-    Handles ghost's graphical movement using a switch statement to set the location given a direction when
+    Handles ghost's movement using a switch statement to set the location given a direction when
     the method is called.
      */
     private void moveGhost(Direction direction){
@@ -234,16 +386,16 @@ public class Ghost implements Collideable{
         if(direction!=null) {
             switch (direction) {
                 case UP:
-                    this.rect.setY(this.rect.getY() - Constants.PACMAN_SPEED);
+                    this.row--;
                     break;
                 case DOWN:
-                    this.rect.setY(this.rect.getY() + Constants.PACMAN_SPEED);
+                    this.row++;
                     break;
                 case LEFT:
-                    this.rect.setX(this.rect.getX() - Constants.PACMAN_SPEED);
+                    this.col--;
                     break;
                 case RIGHT:
-                    this.rect.setX(this.rect.getX() + Constants.PACMAN_SPEED);
+                    this.col++;
                     break;
             }
         }
@@ -251,16 +403,17 @@ public class Ghost implements Collideable{
 
     /*
     Separate method that handles generating a random direction to move in when status of game changes to frightened mode.
-    Current location is passed as row and column, and valid directions for movement at that position are stored in array list.
-    If a direction is valid, then store in array list and select a random index to return a valid direction.
+    Current location is passed as row and column, and valid directions for movement at that position are stored in
+    the ghost's scratch array. If a direction is valid, then store it and select a random index to return a valid direction.
      */
-    private Direction generateRandomDirection(int row, int col) {
-        ArrayList<Direction> validDirections = new ArrayList<>();
-        if (col > 0 && col < 22) {
-            for (Direction direction : Direction.values()) {
-                if (this.maze[direction.newRow(row)][direction.newCol(col)].getColor() == Color.BLACK &&
+    Direction generateRandomDirection(int row, int col) {
+        int validCount = 0;
+        if (col > 0 && col < this.board.getCols() - 1) {
+            for (Direction direction : DIRECTIONS) {
+                if (!this.walls.get(this.board.squareIndex(direction.newRow(row), direction.newCol(col))) &&
                         this.currDirection != direction.opposite()) {
-                    validDirections.add(direction);
+                    this.validDirections[validCount] = direction;
+                    validCount++;
                 }
             }
         }
@@ -269,18 +422,15 @@ public class Ghost implements Collideable{
          Randomly choose one of those valid directions for the Ghost to move in
          (if there is only one, the Ghost should move in that direction).
          */
-        int rand_index = (int) (Math.random() * validDirections.size());
-        // access direction stored at random index in array list and update the current direction
-        Direction direction = validDirections.get(rand_index);
+        if (validCount == 0) {
+            // no valid direction, so the ghost stays in place as it does when the BFS finds no move
+            this.currDirection = null;
+            return null;
+        }
+        int rand_index = this.random.nextInt(validCount);
+        // access direction stored at random index and update the current direction
+        Direction direction = this.validDirections[rand_index];
         this.currDirection = direction;
         return direction;
     }
-
-    /*
-    Sets the circle shape to front in order for pacman to show up in front of collideable objects (dots)
-    */
-    public void bringToFront(){
-        this.rect.toFront();
-    }
 }
-
@@ -0,0 +1,144 @@
+package pacman;
+
+/**
+ * Precomputed table of ghost decisions for one maze layout. For every open square, every heading a ghost can
+ * have and every target square, the table stores the direction that the ghost's BFS would choose, so that a
+ * decision made in the timeline becomes a single array read instead of a new search.
+ *
+ * The table is built once per maze load. Squares on the wrapping columns are not stored, because ghosts there
+ * wrap through the tunnel instead of choosing a direction. Its size grows with the number of open squares times
+ * the area of the board, so large boards are played without one (see tableSize).
+ */
+public class GhostPathTable {
+
+    // chase targets are offset from pacman and can fall outside the board, so the target grid is padded on all sides
+    private static final int TARGET_PADDING = 4;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // one heading per direction plus one for a ghost that has not been assigned a direction (null)
+    private static final int HEADINGS = DIRECTIONS.length + 1;
+    private static final byte NO_DIRECTION = (byte) DIRECTIONS.length;
+
+    private Board board;
+    private int targetRows;
+    private int targetCols;
+    private int[] sourceIndex; // maps a packed square to the square's block in the table, -1 if not stored
+    private byte[] decisions;
+
+    /*
+    Builds the table from the walls of a board, computing the decision for every stored square, heading and target.
+     */
+    public GhostPathTable(Board board) {
+        this.board = board;
+        this.targetRows = board.getRows() + 2 * TARGET_PADDING;
+        this.targetCols = board.getCols() + 2 * TARGET_PADDING;
+        this.sourceIndex = new int[board.getSquares()];
+        int sources = 0;
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                // only squares whose four neighbours are inside the board are stored
+                boolean inside = row > 0 && row < board.getRows() - 1 && col > 0 && col < board.getCols() - 1;
+                if (inside && !board.isWall(row, col)) {
+                    this.sourceIndex[board.squareIndex(row, col)] = sources;
+                    sources++;
+                } else {
+                    this.sourceIndex[board.squareIndex(row, col)] = -1;
+                }
+            }
+        }
+        this.decisions = new byte[sources * HEADINGS * this.targetRows * this.targetCols];
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                int source = this.sourceIndex[board.squareIndex(row, col)];
+                if (source < 0) {
+                    continue;
+                }
+                for (int heading = 0; heading < HEADINGS; heading++) {
+                    Direction currDirection = heading == NO_DIRECTION ? null : DIRECTIONS[heading];
+                    for (int targetRow = 0; targetRow < this.targetRows; targetRow++) {
+                        for (int targetCol = 0; targetCol < this.targetCols; targetCol++) {
+                            Direction direction = closestNeighbour(board, row, col, currDirection,
+                                    targetRow - TARGET_PADDING, targetCol - TARGET_PADDING);
+                            this.decisions[this.index(source, heading, targetRow, targetCol)] =
+                                    direction == null ? NO_DIRECTION : (byte) direction.ordinal();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+    Returns the number of bytes a table takes for a board with the given number of open squares and dimensions,
+    so that boards can decide whether to build one.
+     */
+    public static long tableSize(int openSquares, int rows, int cols) {
+        return (long) openSquares * HEADINGS * (rows + 2 * TARGET_PADDING) * (cols + 2 * TARGET_PADDING);
+    }
+
+    /*
+    Returns whether a decision is stored for a ghost at the given square heading towards the given target.
+     */
+    public boolean covers(int row, int col, int targetRow, int targetCol) {
+        if (!this.board.contains(row, col)) {
+            return false;
+        }
+        int padRow = targetRow + TARGET_PADDING;
+        int padCol = targetCol + TARGET_PADDING;
+        return this.sourceIndex[this.board.squareIndex(row, col)] >= 0
+                && padRow >= 0 && padRow < this.targetRows && padCol >= 0 && padCol < this.targetCols;
+    }
+
+    /*
+    Looks up the direction a ghost at the given square and current direction takes towards the target. Returns
+    null when the ghost has no valid move, exactly like the BFS. Only call this when covers returns true.
+     */
+    public Direction nextDirection(int row, int col, Direction currDirection, int targetRow, int targetCol) {
+        int source = this.sourceIndex[this.board.squareIndex(row, col)];
+        int heading = currDirection == null ? NO_DIRECTION : currDirection.ordinal();
+        byte decision = this.decisions[this.index(source, heading, targetRow + TARGET_PADDING, targetCol + TARGET_PADDING)];
+        return decision == NO_DIRECTION ? null : DIRECTIONS[decision];
+    }
+
+    /*
+    Same lookup for callers that keep directions as ordinals, such as GameBatch: the heading is the ordinal of the
+    current direction or the number of directions for none, and so is the result when the ghost has no valid move.
+    Only call this when covers returns true.
+     */
+    int decision(int square, int heading, int targetRow, int targetCol) {
+        return this.decisions[this.index(this.sourceIndex[square], heading, targetRow + TARGET_PADDING,
+                targetCol + TARGET_PADDING)];
+    }
+
+    /*
+    Helper method that flattens a source block, heading and padded target into an index of the decisions array.
+     */
+    private int index(int source, int heading, int padRow, int padCol) {
+        return ((source * HEADINGS + heading) * this.targetRows + padRow) * this.targetCols + padCol;
+    }
+
+    /*
+    Computes the decision the ghost's BFS makes: the valid neighbours of the current square (not a wall and not
+    the opposite of the current direction) are visited in the order of the Direction enum and the one with the
+    shortest euclidean distance to the target wins. As in the BFS, the minimum distance is stored as an int, so a
+    later neighbour must beat the truncated distance of an earlier one.
+     */
+    static Direction closestNeighbour(Board board, int row, int col, Direction currDirection,
+                                      int targetRow, int targetCol) {
+        int minDistance = Constants.MIN_DISTANCE;
+        Direction closest = null;
+        for (Direction direction : DIRECTIONS) {
+            int newRow = direction.newRow(row);
+            int newCol = direction.newCol(col);
+            if (!board.isWall(newRow, newCol) && currDirection != direction.opposite()) {
+                double distanceX = newCol * Constants.SQ_WIDTH - targetCol * Constants.SQ_WIDTH;
+                double distanceY = newRow * Constants.SQ_WIDTH - targetRow * Constants.SQ_WIDTH;
+                double distance = Math.sqrt((distanceX * distanceX) + (distanceY * distanceY));
+                if (distance < minDistance) {
+                    minDistance = (int) distance;
+                    closest = direction;
+                }
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,212 @@
+package pacman;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the inputs of one game to a compact binary log that Replay can play back exactly. The log starts with a
+ * header holding the game's seed and settings, followed by one varint per input and a closing record with the
+ * result of the game. Because the seed decides every random move, the header and the inputs determine the game.
+ *
+ * Layout, with varints written as unsigned LEB128 (7 bits per byte, low bits first):
+ *   int MAGIC, byte VERSION, long seed,
+ *   double chaseLimit, scatterLimit, frightenedLimit, penCount, tickDuration (all in seconds),
+ *   byte pathing mode ordinal, int ghostCount, byte collision mode ordinal, byte random mode ordinal,
+ *   int rows, int cols, long maze fingerprint (see Board.getFingerprint)
+ *   varint (tickDelta << CODE_BITS | direction ordinal) for each input, tickDelta counted from the previous input
+ *   varint (tickDelta << CODE_BITS | END_CODE), varint score, varint lives, byte status ordinal
+ *
+ * Records are gathered in a direct buffer and written to a FileChannel when it fills up, so recording costs no
+ * system call per input. A log without the closing record (a game that was quit, or a process killed with records
+ * still in the buffer or halfway through writing one) still replays up to its last whole input.
+ *
+ * A recorded game can be rewound: a snapshot notes which recording it was taken in and how many inputs had been
+ * recorded, and restoring it cuts the log back to those inputs, so that the log always holds the game as it was
+ * finally played.
+ */
+public class InputRecorder implements Closeable {
+
+    static final int MAGIC = 0x50414352; // "PACR"
+    // version 1 logs have no pathing mode (always classic), version 2 logs no ghost count (always four), version 3
+    // logs no collision mode (always square), version 4 logs no random mode (always shared) and version 5 logs no
+    // maze fingerprint (any board is accepted); up to version 6 the mode limits are in ticks and a tick is always
+    // Constants.TIMELINE_DURATION
+    static final byte VERSION = 7;
+    static final int CODE_BITS = 3;
+    static final int END_CODE = 4;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_RECORD_SIZE = 32;
+    private static final int INITIAL_INPUTS = 64;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1); // 0 stands for no recording in snapshots
+
+    private Game game;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private int lastTick;
+    private boolean closed;
+    private long id;
+    private int startTick;
+    private long written; // bytes already written to the file
+    private long headerEnd; // offset of the first input in the file
+    // tick of every input recorded so far and the offset in the file just after it, to rewind to
+    private int inputs;
+    private int[] inputTicks;
+    private long[] inputEnds;
+
+    /*
+    Opens the log file, replacing any existing file, writes the header for the game and attaches itself to the game
+    so that every following input is recorded.
+     */
+    public InputRecorder(Game game, Path path) throws IOException {
+        this.game = game;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.id = NEXT_ID.getAndIncrement();
+        this.lastTick = game.getTick();
+        this.startTick = this.lastTick;
+        this.inputTicks = new int[INITIAL_INPUTS];
+        this.inputEnds = new long[INITIAL_INPUTS];
+        GameSettings settings = game.getSettings();
+        this.buffer.putInt(MAGIC);
+        this.buffer.put(VERSION);
+        this.buffer.putLong(game.getSeed());
+        this.buffer.putDouble(settings.getChaseLimit());
+        this.buffer.putDouble(settings.getScatterLimit());
+        this.buffer.putDouble(settings.getFrightenedLimit());
+        this.buffer.putDouble(settings.getPenCount());
+        this.buffer.putDouble(game.getTickDuration());
+        this.buffer.put((byte) settings.getPathingMode().ordinal());
+        this.buffer.putInt(settings.getGhostCount());
+        this.buffer.put((byte) settings.getCollisionMode().ordinal());
+        this.buffer.put((byte) settings.getRandomMode().ordinal());
+        this.buffer.putInt(game.getBoard().getRows());
+        this.buffer.putInt(game.getBoard().getCols());
+        this.buffer.putLong(game.getBoard().getFingerprint());
+        this.headerEnd = this.buffer.position();
+        game.setRecorder(this);
+    }
+
+    /*
+    Records an input given before the given tick is played. Called by the game from handleInput; a failure to write
+    is thrown as an UncheckedIOException so that the game itself does not deal with files.
+     */
+    public void record(int tick, Direction direction) {
+        this.ensureSpace();
+        this.writeVarint((long) (tick - this.lastTick) << CODE_BITS | direction.ordinal());
+        this.lastTick = tick;
+        if (this.inputs == this.inputTicks.length) {
+            this.inputTicks = Arrays.copyOf(this.inputTicks, this.inputs * 2);
+            this.inputEnds = Arrays.copyOf(this.inputEnds, this.inputs * 2);
+        }
+        this.inputTicks[this.inputs] = tick;
+        this.inputEnds[this.inputs] = this.written + this.buffer.position();
+        this.inputs++;
+    }
+
+    /*
+    Cuts the log back to its first inputs, dropping every input recorded after them, as when the game is restored
+    from a snapshot taken when that many inputs had been recorded. Inputs already written to the file are truncated
+    from it. Throws IllegalStateException when fewer inputs were recorded or the recorder is closed.
+     */
+    void rewind(int inputs) {
+        if (this.closed || inputs > this.inputs) {
+            throw new IllegalStateException("Cannot rewind a recording of " + this.inputs + " inputs to " + inputs);
+        }
+        long end = inputs == 0 ? this.headerEnd : this.inputEnds[inputs - 1];
+        this.lastTick = inputs == 0 ? this.startTick : this.inputTicks[inputs - 1];
+        this.inputs = inputs;
+        if (end >= this.written) {
+            this.buffer.position((int) (end - this.written));
+            return;
+        }
+        this.buffer.clear();
+        try {
+            this.channel.truncate(end);
+            this.channel.position(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.written = end;
+    }
+
+    /*
+    Returns the number that identifies this recording in the snapshots taken while it records.
+     */
+    long getId() {
+        return this.id;
+    }
+
+    /*
+    Returns the number of inputs recorded so far.
+     */
+    int getInputCount() {
+        return this.inputs;
+    }
+
+    /*
+    Writes the closing record with the result of the game so far, detaches from the game and closes the file.
+    Closing more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.game.setRecorder(null);
+        try {
+            this.ensureSpace();
+            this.writeVarint((long) (this.game.getTick() - this.lastTick) << CODE_BITS | END_CODE);
+            this.writeVarint(this.game.getScore());
+            this.writeVarint(this.game.getLives());
+            this.buffer.put((byte) this.game.getStatus().ordinal());
+            this.flush();
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    Writes the buffer to the file when it cannot hold another record.
+     */
+    private void ensureSpace() {
+        if (this.buffer.remaining() < MAX_RECORD_SIZE) {
+            try {
+                this.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+    Writes everything in the buffer to the file and empties the buffer.
+     */
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.written += this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /*
+    Writes a non-negative value as an unsigned LEB128 varint.
+     */
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            this.buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        this.buffer.put((byte) value);
+    }
+}
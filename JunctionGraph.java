@@ -0,0 +1,272 @@
+package pacman;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decomposition of a board into junctions and the corridors between them. Every open square with other than two
+ * open neighbours (a crossing, a corner of an open area or a dead end) is a junction, and each maximal run of
+ * two-neighbour squares between two junctions is a corridor, stored as one weighted edge of the junction graph.
+ * A square inside a corridor knows its corridor, how far it is from the corridor's first junction and which way
+ * leads to each end. The tunnel counts as an ordinary link between its two edge squares.
+ *
+ * Ghosts inside a corridor can only go on (they never reverse), so they only have a real choice on junctions.
+ * Searching the junction graph instead of the squares is what keeps pathing cheap on large boards.
+ */
+public class JunctionGraph {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private Board board;
+    private int[] nodeOfSquare; // junction index of each square, -1 for walls and corridor squares
+    private int[] nodeSquare; // packed square of each junction
+    // edges, one per corridor, from one junction to another, leaving each end in a given direction
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private int[] edgeLength;
+    private byte[] edgeFromDirection;
+    private byte[] edgeToDirection;
+    // adjacency of each junction, in compressed rows: entries adjStart[node] to adjStart[node + 1] - 1
+    private int[] adjStart;
+    private int[] adjEdge;
+    private int[] adjOther;
+    private int[] adjLength;
+    private byte[] adjDirection;
+    // corridor squares: their edge (-1 for junctions, walls and corridors without junctions), distance from the
+    // edge's from junction and the directions leading towards each end of the corridor
+    private int[] edgeOfSquare;
+    private int[] offsetOfSquare;
+    private byte[] towardsFrom;
+    private byte[] towardsTo;
+
+    /*
+    Builds the graph for a board by finding the junctions and tracing every corridor from them.
+     */
+    public JunctionGraph(Board board) {
+        this.board = board;
+        int squares = board.getSquares();
+        this.nodeOfSquare = new int[squares];
+        Arrays.fill(this.nodeOfSquare, -1);
+        int nodes = 0;
+        for (int square = 0; square < squares; square++) {
+            if (this.board.isJunction(square)) {
+                this.nodeOfSquare[square] = nodes;
+                nodes++;
+            }
+        }
+        this.nodeSquare = new int[nodes];
+        for (int square = 0; square < squares; square++) {
+            if (this.nodeOfSquare[square] >= 0) {
+                this.nodeSquare[this.nodeOfSquare[square]] = square;
+            }
+        }
+
+        this.edgeOfSquare = new int[squares];
+        Arrays.fill(this.edgeOfSquare, -1);
+        this.offsetOfSquare = new int[squares];
+        this.towardsFrom = new byte[squares];
+        this.towardsTo = new byte[squares];
+        List<int[]> edges = new ArrayList<>();
+        boolean[] traced = new boolean[nodes * DIRECTIONS.length];
+        for (int node = 0; node < nodes; node++) {
+            for (Direction direction : DIRECTIONS) {
+                if (!traced[node * DIRECTIONS.length + direction.ordinal()]
+                        && this.neighbour(this.nodeSquare[node], direction) >= 0) {
+                    int[] edge = this.trace(node, direction, edges.size());
+                    traced[node * DIRECTIONS.length + direction.ordinal()] = true;
+                    traced[edge[1] * DIRECTIONS.length + edge[4]] = true;
+                    edges.add(edge);
+                }
+            }
+        }
+        this.storeEdges(edges, nodes);
+    }
+
+    /*
+    Follows a corridor from a junction in the given direction until it reaches a junction, labelling the squares on
+    the way. Returns the edge as {from, to, length, fromDirection, toDirection}.
+     */
+    private int[] trace(int from, Direction direction, int edge) {
+        int current = this.neighbour(this.nodeSquare[from], direction);
+        Direction step = direction;
+        int length = 1;
+        while (this.nodeOfSquare[current] < 0) {
+            this.edgeOfSquare[current] = edge;
+            this.offsetOfSquare[current] = length;
+            this.towardsFrom[current] = (byte) step.opposite().ordinal();
+            for (Direction next : DIRECTIONS) {
+                int neighbour = this.neighbour(current, next);
+                if (neighbour >= 0 && next != step.opposite()) {
+                    this.towardsTo[current] = (byte) next.ordinal();
+                    current = neighbour;
+                    step = next;
+                    break;
+                }
+            }
+            length++;
+        }
+        return new int[] {from, this.nodeOfSquare[current], length, direction.ordinal(), step.opposite().ordinal()};
+    }
+
+    /*
+    Copies the traced edges into arrays and builds the adjacency of every junction.
+     */
+    private void storeEdges(List<int[]> edges, int nodes) {
+        int count = edges.size();
+        this.edgeFrom = new int[count];
+        this.edgeTo = new int[count];
+        this.edgeLength = new int[count];
+        this.edgeFromDirection = new byte[count];
+        this.edgeToDirection = new byte[count];
+        this.adjStart = new int[nodes + 1];
+        for (int edge = 0; edge < count; edge++) {
+            int[] values = edges.get(edge);
+            this.edgeFrom[edge] = values[0];
+            this.edgeTo[edge] = values[1];
+            this.edgeLength[edge] = values[2];
+            this.edgeFromDirection[edge] = (byte) values[3];
+            this.edgeToDirection[edge] = (byte) values[4];
+            this.adjStart[values[0] + 1]++;
+            this.adjStart[values[1] + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            this.adjStart[node + 1] += this.adjStart[node];
+        }
+        int entries = this.adjStart[nodes];
+        this.adjEdge = new int[entries];
+        this.adjOther = new int[entries];
+        this.adjLength = new int[entries];
+        this.adjDirection = new byte[entries];
+        int[] fill = Arrays.copyOf(this.adjStart, nodes);
+        for (int edge = 0; edge < count; edge++) {
+            this.addAdjacency(fill, this.edgeFrom[edge], edge, this.edgeTo[edge], this.edgeFromDirection[edge]);
+            this.addAdjacency(fill, this.edgeTo[edge], edge, this.edgeFrom[edge], this.edgeToDirection[edge]);
+        }
+    }
+
+    /*
+    Helper method that appends one entry to a junction's adjacency.
+     */
+    private void addAdjacency(int[] fill, int node, int edge, int other, byte direction) {
+        int entry = fill[node];
+        this.adjEdge[entry] = edge;
+        this.adjOther[entry] = other;
+        this.adjLength[entry] = this.edgeLength[edge];
+        this.adjDirection[entry] = direction;
+        fill[node]++;
+    }
+
+    /*
+    Returns the packed square reached by moving one square from the given square, wrapping through the tunnel, or
+    -1 when that square is a wall or off the board.
+     */
+    public int neighbour(int square, Direction direction) {
+        return this.board.neighbour(square, direction);
+    }
+
+    /*
+    Returns whether a packed square is not a wall.
+     */
+    public boolean isOpen(int square) {
+        return !this.board.getWalls().get(square);
+    }
+
+    public Board getBoard() {
+        return this.board;
+    }
+
+    public int getNodeCount() {
+        return this.nodeSquare.length;
+    }
+
+    public int getEdgeCount() {
+        return this.edgeFrom.length;
+    }
+
+    /*
+    Returns the junction at a packed square, or -1 when the square is not a junction.
+     */
+    public int nodeOf(int square) {
+        return this.nodeOfSquare[square];
+    }
+
+    /*
+    Returns whether a packed square is a junction.
+     */
+    public boolean isJunction(int square) {
+        return this.nodeOfSquare[square] >= 0;
+    }
+
+    public int nodeSquare(int node) {
+        return this.nodeSquare[node];
+    }
+
+    public int adjStart(int node) {
+        return this.adjStart[node];
+    }
+
+    public int adjEnd(int node) {
+        return this.adjStart[node + 1];
+    }
+
+    public int adjEdge(int entry) {
+        return this.adjEdge[entry];
+    }
+
+    public int adjOther(int entry) {
+        return this.adjOther[entry];
+    }
+
+    public int adjLength(int entry) {
+        return this.adjLength[entry];
+    }
+
+    /*
+    Returns the ordinal of the direction in which an adjacency entry leaves its junction.
+     */
+    public int adjDirection(int entry) {
+        return this.adjDirection[entry];
+    }
+
+    public int edgeFrom(int edge) {
+        return this.edgeFrom[edge];
+    }
+
+    public int edgeTo(int edge) {
+        return this.edgeTo[edge];
+    }
+
+    public int edgeLength(int edge) {
+        return this.edgeLength[edge];
+    }
+
+    /*
+    Returns the corridor a packed square lies inside, or -1 for junctions, walls and squares of corridors without
+    any junction (closed loops), which cannot be searched.
+     */
+    public int edgeOf(int square) {
+        return this.edgeOfSquare[square];
+    }
+
+    /*
+    Returns the distance of a corridor square from its corridor's from junction.
+     */
+    public int offsetOf(int square) {
+        return this.offsetOfSquare[square];
+    }
+
+    /*
+    Returns the ordinal of the direction leading from a corridor square towards its corridor's from junction.
+     */
+    public int towardsFrom(int square) {
+        return this.towardsFrom[square];
+    }
+
+    /*
+    Returns the ordinal of the direction leading from a corridor square towards its corridor's to junction.
+     */
+    public int towardsTo(int square) {
+        return this.towardsTo[square];
+    }
+}
@@ -0,0 +1,119 @@
+package pacman;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of nanosecond latencies with log-linear buckets in the style of HdrHistogram: every power of two is
+ * split into 32 equal sub-buckets, so any recorded value is known to within about 3% whatever its size, and the
+ * whole range of a long fits in under two thousand counters. Recording is a bucket lookup and one counter update.
+ *
+ * A histogram has a single writer, the thread running the game, and can be read at any time from other threads
+ * (JMX, the overlay). Readers may see a recording that is half applied, which is fine for monitoring.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // counts[BUCKETS] holds the total count, counts[BUCKETS + 1] the sum and counts[BUCKETS + 2] the maximum
+    private AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS + 3);
+    }
+
+    /*
+    Records one latency in nanoseconds. Negative values, which a clock can produce, are recorded as 0. Only the
+    writer thread may call this: the counters are updated with plain reads and ordered writes, not atomically.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int bucket = bucketOf(value);
+        this.counts.lazySet(bucket, this.counts.get(bucket) + 1);
+        this.counts.lazySet(BUCKETS, this.counts.get(BUCKETS) + 1);
+        this.counts.lazySet(BUCKETS + 1, this.counts.get(BUCKETS + 1) + value);
+        if (value > this.counts.get(BUCKETS + 2)) {
+            this.counts.lazySet(BUCKETS + 2, value);
+        }
+    }
+
+    /*
+    Returns the number of recorded values.
+     */
+    public long getCount() {
+        return this.counts.get(BUCKETS);
+    }
+
+    /*
+    Returns the mean of the recorded values, or 0 when nothing has been recorded.
+     */
+    public double getMean() {
+        long count = this.getCount();
+        return count == 0 ? 0 : (double) this.counts.get(BUCKETS + 1) / count;
+    }
+
+    /*
+    Returns the largest recorded value.
+     */
+    public long getMax() {
+        return this.counts.get(BUCKETS + 2);
+    }
+
+    /*
+    Returns the value below which the given fraction of recordings fall, reported as the highest value of its
+    bucket and never more than the maximum. Returns 0 when nothing has been recorded.
+     */
+    public long getPercentile(double fraction) {
+        long count = this.getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+    /*
+    Clears every counter. Recordings made while the reset runs may be partly lost.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0);
+        }
+    }
+
+    /*
+    Maps a value to its bucket. Values below SUB_BUCKETS get a bucket each; larger values are grouped by their
+    highest set bit and split by the SUB_BUCKET_BITS bits below it.
+     */
+    private static int bucketOf(long value) {
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int group = magnitude - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return group * SUB_BUCKETS + subBucket;
+    }
+
+    /*
+    Returns the largest value that falls into a bucket.
+     */
+    private static long highestValueOf(int bucket) {
+        int group = bucket / SUB_BUCKETS;
+        long subBucket = bucket % SUB_BUCKETS;
+        if (group == 0) {
+            return subBucket;
+        }
+        int shift = group - 1;
+        long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
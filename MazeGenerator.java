@@ -0,0 +1,186 @@
+package pacman;
+
+import cs15.fnl.pacmanSupport.CS15SquareType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Generates square mazes of any odd size for simulations and benchmarks on boards larger than the support map.
+ * The maze is carved as a spanning tree over the squares with odd row and column, then every dead end is opened
+ * into a neighbouring corridor so that it has loops like a pacman maze. An open 5x5 pen sits in the centre, a tunnel
+ * crosses the board four rows below it, pacman starts two rows below the tunnel, energizers fill the four corners
+ * and every other open square holds a dot. The same size and seed always give the same maze.
+ *
+ * Run with: java pacman.MazeGenerator size=<odd size> [seed=<seed>] out=<file ending in .maze or .pacmap>
+ */
+public class MazeGenerator {
+
+    public static final int MIN_SIZE = 15;
+    private static final int PEN_RADIUS = 2;
+    private static final int TUNNEL_OFFSET = 4;
+    private static final int PACMAN_OFFSET = 6;
+    private static final int[][] STEPS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+
+    public static void main(String[] args) throws IOException {
+        int size = 0;
+        long seed = 15;
+        Path out = null;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Arguments must be written as key=value: " + arg);
+            }
+            switch (pair[0]) {
+                case "size":
+                    size = Integer.parseInt(pair[1]);
+                    break;
+                case "seed":
+                    seed = Long.parseLong(pair[1]);
+                    break;
+                case "out":
+                    out = Paths.get(pair[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Usage: java pacman.MazeGenerator size=<odd size> [seed=<seed>] out=<file>");
+        }
+        Board board = generate(size, seed);
+        if (out.toString().endsWith(BinaryMazeLoader.EXTENSION)) {
+            BinaryMazeLoader.write(board, out);
+        } else {
+            TextMazeLoader.write(board, out);
+        }
+        System.out.println("wrote " + size + "x" + size + " maze with " + board.getItemCount() + " items to " + out);
+    }
+
+    /*
+    Generates the maze of the given size from the given seed. Throws IllegalArgumentException for even sizes and
+    sizes below MIN_SIZE.
+     */
+    public static Board generate(int size, long seed) {
+        if (size < MIN_SIZE || size % 2 == 0) {
+            throw new IllegalArgumentException("Maze size must be odd and at least " + MIN_SIZE + ": " + size);
+        }
+        Random random = new Random(seed);
+        boolean[][] open = new boolean[size][size];
+        carve(open, random);
+        braid(open, random);
+
+        int mid = (size / 2) | 1;
+        for (int row = mid - PEN_RADIUS; row <= mid + PEN_RADIUS; row++) {
+            for (int col = mid - PEN_RADIUS; col <= mid + PEN_RADIUS; col++) {
+                open[row][col] = true;
+            }
+        }
+        int penExitRow = mid - PEN_RADIUS - 1;
+        open[penExitRow][mid] = true;
+        int tunnelRow = mid + TUNNEL_OFFSET;
+        open[tunnelRow][0] = true;
+        open[tunnelRow][size - 1] = true;
+
+        CS15SquareType[][] squares = new CS15SquareType[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                boolean inPen = Math.abs(row - mid) <= PEN_RADIUS && Math.abs(col - mid) <= PEN_RADIUS;
+                boolean edge = col == 0 || col == size - 1;
+                if (!open[row][col]) {
+                    squares[row][col] = CS15SquareType.WALL;
+                } else if (inPen || edge) {
+                    squares[row][col] = CS15SquareType.FREE;
+                } else {
+                    squares[row][col] = CS15SquareType.DOT;
+                }
+            }
+        }
+        squares[mid][mid] = CS15SquareType.GHOST_START_LOCATION;
+        squares[mid + PACMAN_OFFSET][mid] = CS15SquareType.PACMAN_START_LOCATION;
+        squares[1][1] = CS15SquareType.ENERGIZER;
+        squares[1][size - 2] = CS15SquareType.ENERGIZER;
+        squares[size - 2][1] = CS15SquareType.ENERGIZER;
+        squares[size - 2][size - 2] = CS15SquareType.ENERGIZER;
+        return new Board(squares, tunnelRow, mid, mid, penExitRow, mid);
+    }
+
+    /*
+    Carves a spanning tree over the squares with odd row and column with an iterative depth-first search, opening
+    the wall between each square and the next one visited.
+     */
+    private static void carve(boolean[][] open, Random random) {
+        int size = open.length;
+        Deque<int[]> stack = new ArrayDeque<>();
+        open[1][1] = true;
+        stack.push(new int[] {1, 1});
+        int[] order = {0, 1, 2, 3};
+        while (!stack.isEmpty()) {
+            int[] square = stack.peek();
+            shuffle(order, random);
+            boolean moved = false;
+            for (int step : order) {
+                int row = square[0] + 2 * STEPS[step][0];
+                int col = square[1] + 2 * STEPS[step][1];
+                if (row > 0 && row < size - 1 && col > 0 && col < size - 1 && !open[row][col]) {
+                    open[square[0] + STEPS[step][0]][square[1] + STEPS[step][1]] = true;
+                    open[row][col] = true;
+                    stack.push(new int[] {row, col});
+                    moved = true;
+                    break;
+                }
+            }
+            if (!moved) {
+                stack.pop();
+            }
+        }
+    }
+
+    /*
+    Opens one more wall around every dead end, chosen at random among the walls that lead to another corridor.
+     */
+    private static void braid(boolean[][] open, Random random) {
+        int size = open.length;
+        int[] order = {0, 1, 2, 3};
+        for (int row = 1; row < size - 1; row += 2) {
+            for (int col = 1; col < size - 1; col += 2) {
+                int exits = 0;
+                for (int[] step : STEPS) {
+                    if (open[row + step[0]][col + step[1]]) {
+                        exits++;
+                    }
+                }
+                if (exits != 1) {
+                    continue;
+                }
+                shuffle(order, random);
+                for (int step : order) {
+                    int wallRow = row + STEPS[step][0];
+                    int wallCol = col + STEPS[step][1];
+                    int nextRow = row + 2 * STEPS[step][0];
+                    int nextCol = col + 2 * STEPS[step][1];
+                    if (!open[wallRow][wallCol] && nextRow > 0 && nextRow < size - 1 && nextCol > 0
+                            && nextCol < size - 1) {
+                        open[wallRow][wallCol] = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+    Shuffles an array in place with the Fisher-Yates algorithm.
+     */
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
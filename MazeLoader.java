@@ -0,0 +1,56 @@
+package pacman;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads a Board from a file, so that mazes of any size can be played, simulated and benchmarked without
+ * recompiling. Two formats are supported: a text format that is easy to write by hand (TextMazeLoader, files ending
+ * in .maze) and a compact binary format that is read through a memory-mapped file (BinaryMazeLoader, files ending
+ * in .pacmap). Dimensions, items, the tunnel row and the pen squares all come from the file.
+ */
+public interface MazeLoader {
+
+    /*
+    Reads the board stored in the given file. Throws IllegalArgumentException when the file is not a valid maze.
+     */
+    Board load(Path path) throws IOException;
+
+    /*
+    Returns the loader for a file, chosen by its extension.
+     */
+    static MazeLoader forPath(Path path) {
+        if (path.toString().endsWith(BinaryMazeLoader.EXTENSION)) {
+            return new BinaryMazeLoader();
+        }
+        return new TextMazeLoader();
+    }
+
+    /*
+    Reads the board stored in a file of either format.
+     */
+    static Board loadBoard(Path path) throws IOException {
+        return forPath(path).load(path);
+    }
+
+    /*
+    Reads every maze file in a directory, in the order of their names, as a level library.
+     */
+    static List<Board> loadLibrary(Path directory) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.toString().endsWith(TextMazeLoader.EXTENSION)
+                    || path.toString().endsWith(BinaryMazeLoader.EXTENSION)).sorted().collect(Collectors.toList());
+        }
+        List<Board> boards = new ArrayList<>();
+        for (Path path : paths) {
+            boards.add(loadBoard(path));
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,449 @@
+package pacman;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Steers pacman with Monte Carlo tree search on the headless engine, for automated playtesting. Pacman only turns
+ * when the way it is pressed is open, so the bot decides where a turn can be taken: on junctions, when pacman is
+ * blocked, and otherwise every Constants.MCTS_STEP_SQUARES squares so that it can turn back along a corridor. At each
+ * decision the bot takes a snapshot of the game and searches until its time budget runs out: each rollout restores
+ * the snapshot into a private copy of the game, follows the tree by UCB1 choosing a direction to hold until the next
+ * decision, adds one new step to the tree, then plays on with a random walk up to a fixed horizon. The copy
+ * runs the game's own updateGame, so the ghosts chase, scatter and move randomly when frightened exactly as they do
+ * in play, with the frightened moves drawn from a fresh seed on every rollout so that the bot plans against the
+ * ghosts' behaviour rather than the game's upcoming draws.
+ *
+ * The search runs on a fork-join pool with one worker per thread, each with its own copy of the game and its own tree,
+ * so the workers write nothing shared while they run. Their visit counts for the first step are added up and the
+ * direction visited most is pressed. The workers are built for the board and settings of the game they are asked about
+ * and built again when a later game has others, so a bot can go on to play another game. Pacman keeps moving between
+ * decisions, as with a player who only presses a key now and then. The bot counts its rollouts and the time spent
+ * searching, so batches can report rollouts per second.
+ */
+public class MctsInput implements PacmanInput {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int NOT_EXPANDED = -1;
+
+    private ForkJoinPool pool;
+    private long budgetNanos;
+    private long seed;
+    private Worker[] workers; // created for the board and settings of the game being played, again when they change
+    // distance in squares from every square to the closest item at the root of the search, read by every worker
+    private int[] itemDistance;
+    private int[] queue;
+    private long rollouts;
+    private long searchNanos;
+
+    /*
+    Constructs a bot that searches on the given pool for the given number of milliseconds per decision. The seed
+    decides the random walks and the frightened moves of the rollouts.
+     */
+    public MctsInput(ForkJoinPool pool, double budgetMillis, long seed) {
+        if (budgetMillis <= 0) {
+            throw new IllegalArgumentException("The time budget must be positive: " + budgetMillis);
+        }
+        this.pool = pool;
+        this.budgetNanos = (long) (budgetMillis * 1e6);
+        this.seed = seed;
+    }
+
+    /*
+    Searches from the current state of the game and returns the direction to press, or null between decisions and
+    when the search found nothing to choose from.
+     */
+    @Override
+    public Direction nextInput(Game game) {
+        if (!isDecision(game)) {
+            return null;
+        }
+        if (this.workers == null || !this.workers[0].fits(game)) {
+            this.workers = new Worker[this.pool.getParallelism()];
+            for (int i = 0; i < this.workers.length; i++) {
+                this.workers[i] = new Worker(this, game, this.seed + i);
+            }
+            this.itemDistance = new int[game.getBoard().getSquares()];
+            this.queue = new int[game.getBoard().getSquares()];
+        }
+        GameSnapshot root = game.snapshot();
+        this.findItemDistances(game);
+        long start = System.nanoTime();
+        this.pool.invoke(new Search(root, start + this.budgetNanos, 0, this.workers.length));
+        this.searchNanos += System.nanoTime() - start;
+
+        Direction best = null;
+        int mostVisits = 0;
+        for (Direction direction : DIRECTIONS) {
+            int visits = 0;
+            for (Worker worker : this.workers) {
+                visits += worker.getRootVisits(direction);
+            }
+            if (visits > mostVisits) {
+                mostVisits = visits;
+                best = direction;
+            }
+        }
+        for (Worker worker : this.workers) {
+            this.rollouts += worker.getRollouts();
+        }
+        return best;
+    }
+
+    /*
+    Returns whether pacman may choose a direction before the next tick: only before a tick the actors move on, and
+    then on a junction, when blocked, and on every step of squares along a corridor.
+     */
+    private static boolean isDecision(Game game) {
+        if (!game.isMoveDue()) {
+            return false;
+        }
+        Board board = game.getBoard();
+        Pacman pacman = game.getPacman();
+        int square = board.squareIndex(pacman.getRow(), pacman.getCol());
+        return game.getTick() / game.getTicksPerSquare() % Constants.MCTS_STEP_SQUARES == 0
+                || board.isJunction(square) || board.neighbour(square, game.getDirection()) < 0;
+    }
+
+    /*
+    Fills in the distance from every square to the closest remaining item with one breadth-first search outwards
+    from all of them at once. Rollouts that eat nothing are told apart by how close they end to an item, so the bot
+    heads for the items left even when they lie beyond its horizon.
+     */
+    private void findItemDistances(Game game) {
+        Board board = game.getBoard();
+        int head = 0;
+        int tail = 0;
+        for (int square = 0; square < this.itemDistance.length; square++) {
+            if (game.getDots().get(square) || game.getEnergizers().get(square)) {
+                this.itemDistance[square] = 0;
+                this.queue[tail++] = square;
+            } else {
+                this.itemDistance[square] = FlowField.UNREACHABLE;
+            }
+        }
+        while (head < tail) {
+            int square = this.queue[head++];
+            for (Direction direction : DIRECTIONS) {
+                int neighbour = board.neighbour(square, direction);
+                if (neighbour >= 0 && this.itemDistance[neighbour] == FlowField.UNREACHABLE) {
+                    this.itemDistance[neighbour] = this.itemDistance[square] + 1;
+                    this.queue[tail++] = neighbour;
+                }
+            }
+        }
+    }
+
+    /*
+    Returns the number of rollouts played so far, over every decision and every worker.
+     */
+    public long getRollouts() {
+        return this.rollouts;
+    }
+
+    /*
+    Returns the time spent searching so far, in nanoseconds.
+     */
+    public long getSearchNanos() {
+        return this.searchNanos;
+    }
+
+    /*
+    Returns the rollouts played per second of search so far.
+     */
+    public double getRolloutsPerSecond() {
+        return this.searchNanos == 0 ? 0 : this.rollouts / (this.searchNanos / 1e9);
+    }
+
+    /**
+     * Lets the workers in a range search until the deadline, splitting the range in halves on the pool. A worker
+     * that only starts after the deadline, because the pool was busy, plays no rollouts.
+     */
+    private class Search extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private GameSnapshot root;
+        private long deadline;
+        private int from;
+        private int to;
+
+        Search(GameSnapshot root, long deadline, int from, int to) {
+            this.root = root;
+            this.deadline = deadline;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                MctsInput.this.workers[this.from].search(this.root, this.deadline);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new Search(this.root, this.deadline, this.from, middle),
+                    new Search(this.root, this.deadline, middle, this.to));
+        }
+    }
+
+    /**
+     * One thread's share of the search: a copy of the game to play rollouts on and a tree of steps kept in arrays
+     * sized once, so a rollout allocates nothing. The children of a node are a block of one node per direction,
+     * of which only the directions open to pacman when the node was expanded are ever chosen.
+     */
+    private static class Worker {
+
+        private MctsInput bot;
+        private Game game;
+        private Board board;
+        private Random random;
+        private int[] firstChild;
+        private byte[] moves; // bit per direction ordinal open to pacman at the node
+        private int[] visits;
+        private double[] values; // sum of the rewards of the rollouts through the node
+        private int nodes;
+        private int[] path; // nodes of the current rollout, from the root
+        private int rollouts;
+        // the root of the current search
+        private int rootScore;
+        private int rootLives;
+        private int horizon;
+
+        Worker(MctsInput bot, Game game, long seed) {
+            this.bot = bot;
+            this.game = new Game(game.getBoard(), game.getSettings(), seed);
+            this.board = game.getBoard();
+            this.random = new Random(seed);
+            this.firstChild = new int[Constants.MCTS_MAX_NODES];
+            this.moves = new byte[Constants.MCTS_MAX_NODES];
+            this.visits = new int[Constants.MCTS_MAX_NODES];
+            this.values = new double[Constants.MCTS_MAX_NODES];
+            this.path = new int[Constants.MCTS_HORIZON_SQUARES + 2];
+        }
+
+        /*
+        Returns whether the worker's copy can restore snapshots of a game: one on the same board, with the same
+        settings, as many ghosts and as many ticks per square.
+         */
+        boolean fits(Game game) {
+            return game.getBoard() == this.board && game.getSettings() == this.game.getSettings()
+                    && game.getGhosts().length == this.game.getGhosts().length
+                    && game.getTicksPerSquare() == this.game.getTicksPerSquare();
+        }
+
+        /*
+        Starts a new tree at the snapshot and plays rollouts until the deadline.
+         */
+        void search(GameSnapshot root, long deadline) {
+            this.rootScore = root.getScore();
+            this.rootLives = root.getLives();
+            this.horizon = root.getTick() + Constants.MCTS_HORIZON_SQUARES * this.game.getTicksPerSquare();
+            this.nodes = 1;
+            this.firstChild[0] = NOT_EXPANDED;
+            this.visits[0] = 0;
+            this.values[0] = 0;
+            this.rollouts = 0;
+            while (System.nanoTime() < deadline) {
+                this.rollout(root);
+                this.rollouts++;
+            }
+        }
+
+        /*
+        Plays one rollout from the snapshot: selection down the tree, expansion of one step, a random walk to the
+        horizon, and the reward added to every node on the way.
+         */
+        private void rollout(GameSnapshot root) {
+            this.game.restore(root);
+            this.game.reseed(this.random.nextLong());
+            int node = 0;
+            int depth = 0;
+            this.path[depth++] = node;
+            while (this.firstChild[node] != NOT_EXPANDED && this.isPlaying()) {
+                int direction = this.select(node);
+                node = this.firstChild[node] + direction;
+                this.path[depth++] = node;
+                this.step(DIRECTIONS[direction]);
+            }
+            if (this.isPlaying() && (node == 0 || this.visits[node] > 0)
+                    && this.nodes + DIRECTIONS.length <= Constants.MCTS_MAX_NODES) {
+                int direction = this.expand(node);
+                node = this.firstChild[node] + direction;
+                this.path[depth++] = node;
+                this.step(DIRECTIONS[direction]);
+            }
+            while (this.isPlaying()) {
+                this.walk();
+            }
+            double reward = this.reward();
+            for (int i = 0; i < depth; i++) {
+                this.visits[this.path[i]]++;
+                this.values[this.path[i]] += reward;
+            }
+        }
+
+        /*
+        Returns whether the rollout goes on: the game is still being played and the horizon is not reached.
+         */
+        private boolean isPlaying() {
+            return this.game.getStatus() == GameStatus.PLAYING && this.game.getTick() < this.horizon;
+        }
+
+        /*
+        Returns the direction ordinal of the child to follow by UCB1, trying every open direction once first.
+         */
+        private int select(int node) {
+            int first = this.firstChild[node];
+            double logVisits = Math.log(this.visits[node]);
+            double bestScore = Double.NEGATIVE_INFINITY;
+            int best = 0;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if ((this.moves[node] & (1 << direction)) == 0) {
+                    continue;
+                }
+                int child = first + direction;
+                if (this.visits[child] == 0) {
+                    return direction;
+                }
+                double score = this.values[child] / this.visits[child]
+                        + Constants.MCTS_EXPLORATION * Math.sqrt(logVisits / this.visits[child]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = direction;
+                }
+            }
+            return best;
+        }
+
+        /*
+        Gives a node its block of children, one per direction, and returns a random direction open to pacman.
+         */
+        private int expand(int node) {
+            int first = this.nodes;
+            this.nodes += DIRECTIONS.length;
+            for (int child = first; child < this.nodes; child++) {
+                this.firstChild[child] = NOT_EXPANDED;
+                this.visits[child] = 0;
+                this.values[child] = 0;
+            }
+            this.firstChild[node] = first;
+            this.moves[node] = (byte) this.openMoves();
+            return this.randomMove(this.moves[node]);
+        }
+
+        /*
+        Presses a direction and plays on until the next decision.
+         */
+        private void step(Direction direction) {
+            this.game.handleInput(direction);
+            do {
+                this.game.updateGame();
+            } while (this.isPlaying() && !isDecision(this.game));
+        }
+
+        /*
+        Plays one tick of the walk. Pacman goes on along corridors and picks a way onwards, not back, on junctions
+        and when blocked: the way towards the closest item some of the time and a random way otherwise, so that
+        rollouts eat like a player would while still trying every way out of reach of the ghosts.
+         */
+        private void walk() {
+            Pacman pacman = this.game.getPacman();
+            int square = this.board.squareIndex(pacman.getRow(), pacman.getCol());
+            Direction current = this.game.getDirection();
+            if (this.game.isMoveDue()
+                    && (this.board.isJunction(square) || this.board.neighbour(square, current) < 0)) {
+                int open = this.openMoves();
+                int onwards = open & ~(1 << current.opposite().ordinal());
+                if (onwards == 0) {
+                    onwards = open;
+                }
+                int direction = this.random.nextDouble() < Constants.MCTS_GREEDY_WALK
+                        ? this.closestMove(square, onwards) : this.randomMove(onwards);
+                this.game.handleInput(DIRECTIONS[direction]);
+            }
+            this.game.updateGame();
+        }
+
+        /*
+        Returns the direction ordinal among the bits set in a non-empty mask that leads closest to an item, taking the
+        first in the order of the Direction enum on a tie.
+         */
+        private int closestMove(int square, int mask) {
+            int best = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if ((mask & (1 << direction)) == 0) {
+                    continue;
+                }
+                int neighbour = this.board.neighbour(square, DIRECTIONS[direction]);
+                int distance = neighbour < 0 ? FlowField.UNREACHABLE : this.bot.itemDistance[neighbour];
+                if (best < 0 || distance < bestDistance) {
+                    best = direction;
+                    bestDistance = distance;
+                }
+            }
+            return best;
+        }
+
+        /*
+        Returns the directions open to pacman from its square as a bit per direction ordinal, or every direction
+        when none is open (off the edge of the board in the tunnel).
+         */
+        private int openMoves() {
+            Pacman pacman = this.game.getPacman();
+            int square = this.board.squareIndex(pacman.getRow(), pacman.getCol());
+            int open = 0;
+            for (Direction direction : DIRECTIONS) {
+                if (this.board.neighbour(square, direction) >= 0) {
+                    open |= 1 << direction.ordinal();
+                }
+            }
+            return open == 0 ? (1 << DIRECTIONS.length) - 1 : open;
+        }
+
+        /*
+        Returns a random direction ordinal among the bits set in a non-empty mask.
+         */
+        private int randomMove(int mask) {
+            int pick = this.random.nextInt(Integer.bitCount(mask));
+            for (int direction = 0; ; direction++) {
+                if ((mask & (1 << direction)) != 0 && pick-- == 0) {
+                    return direction;
+                }
+            }
+        }
+
+        /*
+        Scores the end of a rollout from the points gained since the root, less a penalty per life lost and one per
+        square pacman ends away from the items left at the root, and plus a bonus for winning. The points are scaled
+        down so that the exploration constant suits them.
+         */
+        private double reward() {
+            Pacman pacman = this.game.getPacman();
+            int distance = this.bot.itemDistance[this.board.squareIndex(pacman.getRow(), pacman.getCol())];
+            double points = this.game.getScore() - this.rootScore
+                    - Constants.MCTS_DEATH_PENALTY * (this.rootLives - this.game.getLives())
+                    - Constants.MCTS_DISTANCE_PENALTY * (distance == FlowField.UNREACHABLE ? 0 : distance);
+            if (this.game.getStatus() == GameStatus.WON) {
+                points += Constants.MCTS_WIN_BONUS;
+            }
+            return points / Constants.MCTS_REWARD_SCALE;
+        }
+
+        /*
+        Returns the visits of the root's child for a direction in the last search, or 0 when it was never expanded.
+         */
+        int getRootVisits(Direction direction) {
+            if (this.firstChild[0] == NOT_EXPANDED || (this.moves[0] & (1 << direction.ordinal())) == 0) {
+                return 0;
+            }
+            return this.visits[this.firstChild[0] + direction.ordinal()];
+        }
+
+        int getRollouts() {
+            return this.rollouts;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package pacman;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+ * Label that shows a one-line summary of a game's tick metrics (p50 and p99 tick cost and the slowest phase),
+ * refreshed a few times a second rather than on every frame so that reading the histograms stays cheap.
+ */
+public class MetricsOverlay {
+
+    private TickMetrics metrics;
+    private Label label;
+    private AnimationTimer timer;
+
+    /*
+    Creates the label and starts refreshing it from the given metrics.
+     */
+    public MetricsOverlay(TickMetrics metrics) {
+        this.metrics = metrics;
+        this.label = new Label(metrics.toString());
+        this.timer = new AnimationTimer() {
+            private long lastRefresh;
+
+            @Override
+            public void handle(long now) {
+                if (now - this.lastRefresh >= Constants.OVERLAY_REFRESH_NANOS) {
+                    this.lastRefresh = now;
+                    MetricsOverlay.this.label.setText(MetricsOverlay.this.metrics.toString());
+                }
+            }
+        };
+        this.timer.start();
+    }
+
+    /*
+    Getter method to return the label, which the caller adds to a pane.
+     */
+    public Label getLabel() {
+        return this.label;
+    }
+}
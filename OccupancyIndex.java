@@ -0,0 +1,169 @@
+package pacman;
+
+import java.util.Arrays;
+
+/**
+ * Records which square each ghost is registered in for collisions with pacman, replacing a list of collideables
+ * on every square. Ghosts are dense slots (their index in the game), each linked into the list of the square it is
+ * registered in, so registering, unregistering and moving a ghost take constant time and keep the order in which
+ * ghosts entered a square. Squares are found through a small open-addressing hash table keyed by square that only
+ * holds squares with at least one ghost, so memory grows with the number of ghosts, not with the board; a square
+ * that never holds a ghost costs nothing. Dots and energizers are the static layer, kept by the game as bitboards.
+ *
+ * Nothing is allocated after construction, so collision queries are allocation-free.
+ */
+public class OccupancyIndex {
+
+    private static final int NONE = -1;
+
+    // per ghost slot: its square (NONE when unregistered) and its neighbours in that square's list
+    private int[] squareOf;
+    private int[] next;
+    private int[] previous;
+    // hash table from square to the first and last ghost registered in it; keys are NONE in free buckets
+    private int[] keys;
+    private int[] heads;
+    private int[] tails;
+    private int mask;
+
+    /*
+    Creates an empty index for the given number of ghost slots. The table has at least twice as many buckets as
+    there are ghosts, so it never fills up.
+     */
+    public OccupancyIndex(int ghosts) {
+        this.squareOf = new int[ghosts];
+        this.next = new int[ghosts];
+        this.previous = new int[ghosts];
+        Arrays.fill(this.squareOf, NONE);
+        int buckets = Integer.highestOneBit(Math.max(4, ghosts) * 2 - 1) << 1;
+        this.keys = new int[buckets];
+        this.heads = new int[buckets];
+        this.tails = new int[buckets];
+        Arrays.fill(this.keys, NONE);
+        this.mask = buckets - 1;
+    }
+
+    /*
+    Registers a ghost in a packed square, after every ghost already there. A ghost registered elsewhere is moved.
+     */
+    public void add(int ghost, int square) {
+        this.remove(ghost);
+        int bucket = this.find(square);
+        if (this.keys[bucket] == NONE) {
+            this.keys[bucket] = square;
+            this.heads[bucket] = ghost;
+            this.previous[ghost] = NONE;
+        } else {
+            this.next[this.tails[bucket]] = ghost;
+            this.previous[ghost] = this.tails[bucket];
+        }
+        this.tails[bucket] = ghost;
+        this.next[ghost] = NONE;
+        this.squareOf[ghost] = square;
+    }
+
+    /*
+    Unregisters a ghost from its square. Does nothing for a ghost that is not registered.
+     */
+    public void remove(int ghost) {
+        int square = this.squareOf[ghost];
+        if (square == NONE) {
+            return;
+        }
+        int bucket = this.find(square);
+        if (this.previous[ghost] == NONE) {
+            this.heads[bucket] = this.next[ghost];
+        } else {
+            this.next[this.previous[ghost]] = this.next[ghost];
+        }
+        if (this.next[ghost] == NONE) {
+            this.tails[bucket] = this.previous[ghost];
+        } else {
+            this.previous[this.next[ghost]] = this.previous[ghost];
+        }
+        this.squareOf[ghost] = NONE;
+        if (this.heads[bucket] == NONE) {
+            this.deleteBucket(bucket);
+        }
+    }
+
+    /*
+    Unregisters every ghost in a packed square.
+     */
+    public void clear(int square) {
+        int bucket = this.find(square);
+        if (this.keys[bucket] == NONE) {
+            return;
+        }
+        for (int ghost = this.heads[bucket]; ghost != NONE; ghost = this.next[ghost]) {
+            this.squareOf[ghost] = NONE;
+        }
+        this.deleteBucket(bucket);
+    }
+
+    /*
+    Returns the ghost that was registered first among those in a packed square, or -1 when there is none.
+     */
+    public int first(int square) {
+        int bucket = this.find(square);
+        return this.keys[bucket] == NONE ? NONE : this.heads[bucket];
+    }
+
+    /*
+    Returns the ghost registered after the given one in the same square, or -1 when it is the last.
+     */
+    public int next(int ghost) {
+        return this.next[ghost];
+    }
+
+    /*
+    Returns the packed square a ghost is registered in, or -1 when it is not registered.
+     */
+    public int squareOf(int ghost) {
+        return this.squareOf[ghost];
+    }
+
+    /*
+    Returns the bucket holding a square, or the free bucket where it would be inserted.
+     */
+    private int find(int square) {
+        int bucket = mix(square) & this.mask;
+        while (this.keys[bucket] != NONE && this.keys[bucket] != square) {
+            bucket = (bucket + 1) & this.mask;
+        }
+        return bucket;
+    }
+
+    /*
+    Frees a bucket and shifts back the entries after it that probed past it, so that every lookup still finds its
+    square without tombstones.
+     */
+    private void deleteBucket(int bucket) {
+        int free = bucket;
+        int current = bucket;
+        while (true) {
+            current = (current + 1) & this.mask;
+            if (this.keys[current] == NONE) {
+                break;
+            }
+            int home = mix(this.keys[current]) & this.mask;
+            // the entry can move into the free bucket unless its home lies cyclically between the two
+            boolean between = free <= current ? free < home && home <= current : free < home || home <= current;
+            if (!between) {
+                this.keys[free] = this.keys[current];
+                this.heads[free] = this.heads[current];
+                this.tails[free] = this.tails[current];
+                free = current;
+            }
+        }
+        this.keys[free] = NONE;
+    }
+
+    /*
+    Spreads the bits of a packed square so that neighbouring squares land in different buckets.
+     */
+    private static int mix(int square) {
+        int hash = square * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,64 +1,50 @@
 package pacman;
 
-import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-
 /**
- * Represents the pacman as a circle moving around the maze that can change direction,
+ * Represents the pacman moving around the maze as a row and column that can change direction,
  * wrap around the maze, and check for move validity whenever it moves into a square.
  */
 public class Pacman {
-    private Pane gamePane;
-    private Circle circle;
     private Game game;
+    private int row;
+    private int col;
 
     /*
-    Constructs the pacman as a yellow circle associated with the game
+    Constructs the pacman associated with the game
      */
-    public Pacman(Pane gamePane, Game game) {
-        this.gamePane = gamePane;
-        this.circle = new Circle(Constants.PACMAN_RADIUS, Color.YELLOW);
+    public Pacman(Game game) {
         this.game = game;
-        this.gamePane.getChildren().add(this.circle);
     }
 
     /*
-    Sets the position of the pacman for a given x and y coordinate
+    Sets the position of the pacman for a given row and column
      */
-    public void setPacmanLoc(double xLoc, double yLoc) {
-        this.circle.setCenterX(xLoc);
-        this.circle.setCenterY(yLoc);
+    public void setPacmanLoc(int row, int col) {
+        this.row = row;
+        this.col = col;
     }
 
     /*
     Checks for the validity of a move pacman wants to make, by calculating new position after tentative move,
-    checking for colour validity (cannot move into a wall), and return a boolean given these conditions.
+    checking for wall validity (cannot move into a wall), and return a boolean given these conditions.
      */
     public boolean checkDirValid(int yMove, int xMove) {
-        // gets the current location
-        int row = this.getRow();
-        int col = this.getCol();
-
-        // returns the 2D array that represents the maze created in the game class
-        MazeSquare[][] maze = this.game.returnMazeArray();
-
         /*
         Handles edge case when pacman needs to wrap around, pacman must continue to move is it is at extrema
         otherwise program generates an array out of bounds error since there is no square to check outside
          */
-        if ((col + xMove) < 0 || (col + xMove) >= Constants.MAZE_DIMENSION) {
+        if ((this.col + xMove) < 0 || (this.col + xMove) >= this.game.getBoard().getCols()) {
             this.wrapPacman();
             return true;
         }
 
         // this will return true if the new square is not a wall
-        else return maze[row + yMove][col + xMove].getColor() != Constants.WALL_COLOR;
+        else return !this.game.getBoard().isWall(this.row + yMove, this.col + xMove);
     }
 
     /*
-     * Handles key input by changing direction of pacman on up, down, left, and
-     * right arrow keys, given a direction and current direction.
+     * Handles input by changing direction of pacman on up, down, left, and
+     * right, given a direction and current direction.
      *
      * For each direction, the method checks whether a move is valid and if so returns a direction to move in.
      * Otherwise, the method returns the current direction and Pacman continues to move in the same direction until
@@ -94,29 +80,29 @@ public class Pacman {
     }
 
     /*
-     * Handles pacman's graphical movement around the move, given an associated direction.
+     * Handles pacman's movement around the maze, given an associated direction.
      * For each direction, check for move validity in that direction and move pacman by the one square.
      */
     public void movePacman(Direction direction) {
         switch (direction) {
             case UP:
                 if (this.checkDirValid(-1, 0)) {
-                    this.circle.setCenterY(this.circle.getCenterY() - Constants.PACMAN_SPEED);
+                    this.row--;
                 }
                 break;
             case DOWN:
                 if (this.checkDirValid(1, 0)) {
-                    this.circle.setCenterY(this.circle.getCenterY() + Constants.PACMAN_SPEED);
+                    this.row++;
                 }
                 break;
             case LEFT:
                 if (this.checkDirValid(0, -1)) {
-                    this.circle.setCenterX(this.circle.getCenterX() - Constants.PACMAN_SPEED);
+                    this.col--;
                 }
                 break;
             case RIGHT:
                 if (this.checkDirValid(0, 1)) {
-                    this.circle.setCenterX(this.circle.getCenterX() + Constants.PACMAN_SPEED);
+                    this.col++;
                 }
                 break;
         }
@@ -127,33 +113,27 @@ public class Pacman {
      * the other extrema of the map, only when the row corresponds to the row in which the tunnel is located.
      */
     public void wrapPacman() {
-        if (this.circle.getCenterX() <= Constants.SQ_WIDTH && this.getRow() == Constants.TUNNEL_ROW) {
-            this.circle.setCenterX((Constants.RIGHT_EXTREMA * Constants.SQ_WIDTH) - Constants.SQ_OFFSET);
+        Board board = this.game.getBoard();
+        int rightExtrema = board.getCols() - 1;
+        if (this.col == 0 && this.row == board.getTunnelRow()) {
+            this.col = rightExtrema - 1;
         }
-        if (this.circle.getCenterX() >= Constants.RIGHT_EXTREMA * Constants.SQ_WIDTH && this.getRow() == Constants.TUNNEL_ROW) {
-            // because pacman is a circle, we need to add an offset to keep pacman aligned to each column's center.
-            this.circle.setCenterX(Constants.SQ_OFFSET);
+        if (this.col == rightExtrema && this.row == board.getTunnelRow()) {
+            this.col = 0;
         }
     }
 
     /*
-     * Getter method to calculate and return the column index of pacman current location
+     * Getter method to return the column index of pacman current location
      */
     public int getCol() {
-        return (int) (this.circle.getCenterX() / Constants.SQ_WIDTH);
+        return this.col;
     }
 
     /*
-     * Getter method to calculate and return the row index of pacman current location
+     * Getter method to return the row index of pacman current location
      */
     public int getRow() {
-        return (int) (this.circle.getCenterY() / Constants.SQ_WIDTH);
-    }
-
-    /*
-    Sets the circle shape to front in order for pacman to show up in front of collideable objects (dots)
-     */
-    public void bringToFront(){
-        this.circle.toFront();
+        return this.row;
     }
 }
@@ -0,0 +1,13 @@
+package pacman;
+
+/**
+ * Interface for anything that steers pacman without a keyboard, such as random or scripted players
+ * in the batch simulator. It is asked once per tick, before the game updates.
+ */
+public interface PacmanInput {
+
+    /*
+    Returns the direction to press this tick, or null to press nothing and let pacman keep moving.
+     */
+    Direction nextInput(Game game);
+}
@@ -7,11 +7,20 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
 
 /**
  * Organizes the JavaFX graphical structure of the program. It
  * creates the root BorderPane with the gamePane in the center and a bottomPane
- * with Quit button and two labels.
+ * with Quit button and two labels. The game's tick metrics are published over JMX, and shown in the bottom pane
+ * when the pacman.metrics system property is true. When the pacman.record system property names a file, the
+ * player's inputs are recorded to it for pacman.Replay, and the recording is closed when the program exits. The
+ * pacman.renderer system property chooses how the maze is drawn (nodes or canvas), and pacman.bot=mcts lets the
+ * Monte Carlo tree search bot play instead of the keyboard. The game ticks sixty times a second unless pacman.tick
+ * gives another tick in seconds.
  */
 public class PaneOrganizer {
 
@@ -35,10 +44,43 @@ public class PaneOrganizer {
         bottomPane.getChildren().add(lives);
 
         /*
-         instantiate the game, associating the gamepane, score, lives labels whose values are added
-         and tracked in the game class as the status of the game changes.
+         instantiate the game on the standard board and its renderer, associating the gamepane, score, lives labels
+         whose values are updated by the renderer as the status of the game changes.
          */
-        new Game(gamePane, score , lives);
+        GameSettings settings = new GameSettings();
+        settings.setTickDuration(Double.parseDouble(
+                System.getProperty(Constants.TICK_PROPERTY, String.valueOf(Constants.PLAY_TICK_DURATION))));
+        Game game = new Game(Board.fromSupportMap(), settings);
+        TickMetrics metrics = new TickMetrics();
+        game.setMetrics(metrics);
+        game.getEvents().subscribe(metrics);
+        try {
+            metrics.register(Constants.METRICS_NAME);
+        } catch (JMException e) {
+            // the game still runs without JMX, the metrics are only unavailable to monitoring tools
+            System.err.println("Could not register tick metrics: " + e.getMessage());
+        }
+        if (Boolean.getBoolean(Constants.METRICS_OVERLAY_PROPERTY)) {
+            bottomPane.getChildren().add(new MetricsOverlay(metrics).getLabel());
+        }
+        String recordPath = System.getProperty(Constants.RECORD_PROPERTY);
+        if (recordPath != null) {
+            try {
+                InputRecorder recorder = new InputRecorder(game, Paths.get(recordPath));
+                Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+            } catch (IOException e) {
+                System.err.println("Could not record to " + recordPath + ": " + e.getMessage());
+            }
+        }
+        RenderMode mode = RenderMode.valueOf(
+                System.getProperty(Constants.RENDERER_PROPERTY, RenderMode.NODES.name()).toUpperCase());
+        GameRenderer renderer = new GameRenderer(game, gamePane, score, lives, mode);
+        String bot = System.getProperty(Constants.BOT_PROPERTY);
+        if ("mcts".equals(bot)) {
+            renderer.setBot(new MctsInput(ForkJoinPool.commonPool(), Constants.MCTS_BUDGET_MILLIS, game.getSeed()));
+        } else if (bot != null) {
+            System.err.println("Unknown bot " + bot + ", playing with the keyboard");
+        }
     }
 
     /*
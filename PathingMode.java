@@ -0,0 +1,11 @@
+package pacman;
+
+/**
+ * Enum to represent how ghosts choose their direction towards a target, with values CLASSIC (the neighbour closest
+ * to the target in a straight line), HIERARCHICAL (the first move of a shortest path through the maze, searched
+ * by each ghost) and FLOW_FIELD (the neighbour closest to the target along the maze, read from a distance field
+ * shared by every ghost with the same target).
+ */
+public enum PathingMode {
+    CLASSIC, HIERARCHICAL, FLOW_FIELD;
+}
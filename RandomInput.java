@@ -0,0 +1,29 @@
+package pacman;
+
+import java.util.Random;
+
+/**
+ * Steers pacman by pressing a random arrow key on some ticks. Each instance has its own seeded
+ * generator, so that games running on different threads do not share one and can be repeated. Keys are only
+ * pressed on ticks the actors move on, so a game with shorter ticks is steered the same way square by square.
+ */
+public class RandomInput implements PacmanInput {
+
+    // chance of pressing a key on any given tick
+    private static final double PRESS_CHANCE = 0.25;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private Random random;
+
+    public RandomInput(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Direction nextInput(Game game) {
+        if (!game.isMoveDue() || this.random.nextDouble() >= PRESS_CHANCE) {
+            return null;
+        }
+        return DIRECTIONS[this.random.nextInt(DIRECTIONS.length)];
+    }
+}
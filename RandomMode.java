@@ -0,0 +1,10 @@
+package pacman;
+
+/**
+ * Enum to represent where frightened ghosts draw their random moves from, with values SHARED (one generator per game
+ * that the ghosts draw from in turn, see SharedRandom, as in recordings made before ghosts had their own) and
+ * PER_GHOST (a generator per ghost split off the game's, see SplitMixRandom).
+ */
+public enum RandomMode {
+    SHARED, PER_GHOST;
+}
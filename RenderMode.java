@@ -0,0 +1,10 @@
+package pacman;
+
+/**
+ * Enum to represent how the renderer draws the maze, with values NODES (one Rectangle per square and one Circle
+ * per dot or energizer) and CANVAS (the walls drawn once onto a canvas and the items onto a second one, so that
+ * only pacman and the ghosts remain as nodes).
+ */
+public enum RenderMode {
+    NODES, CANVAS;
+}
@@ -0,0 +1,265 @@
+package pacman;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A recorded game read back from a log written by InputRecorder: the seed, the settings, every input with the tick
+ * it was given before, and the result the game had when the recording ended. Logs since version 7 carry the tick
+ * and the mode timers in seconds; older ones were played with the default tick and their timers in ticks are
+ * converted. Playing a replay runs a new headless game with the same seed and settings at full speed, applying each
+ * input before its tick, and reproduces the original game exactly.
+ *
+ * Run with: java pacman.Replay [maze=<maze file>] <file or directory> ... to replay every log and check that each
+ * one reaches its recorded score, lives and status. Directories are searched for files ending in .pacrec. Logs do
+ * not name their maze, so games recorded on a loaded maze must be replayed with the same maze argument; logs since
+ * version 6 carry the maze's dimensions and fingerprint, and are reported rather than replayed on any other maze.
+ */
+public class Replay {
+
+    public static final String EXTENSION = ".pacrec";
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final GameStatus[] STATUSES = GameStatus.values();
+
+    private long seed;
+    private GameSettings settings;
+    private boolean hasMaze; // whether the log names the dimensions and fingerprint of its maze
+    private int rows;
+    private int cols;
+    private long fingerprint;
+    private int[] ticks;
+    private Direction[] directions;
+    private boolean finished; // whether the log has its closing record
+    private int endTick;
+    private int score;
+    private int lives;
+    private GameStatus status;
+
+    /*
+    Parses a log from a buffer holding the whole file. A log cut off inside a record, as when the process recording
+    it was killed, ends with its last whole input and is treated as unfinished; one cut off inside its header is
+    rejected.
+     */
+    private Replay(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES + 1 || buffer.getInt() != InputRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a pacman recording");
+        }
+        byte version = buffer.get();
+        if (version < 1 || version > InputRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported recording version: " + version);
+        }
+        try {
+            this.readHeader(buffer, version);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Recording ends inside its header");
+        }
+        List<Integer> ticks = new ArrayList<>();
+        List<Direction> directions = new ArrayList<>();
+        int tick = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                long record = readVarint(buffer);
+                int recordTick = tick + (int) (record >>> InputRecorder.CODE_BITS);
+                int code = (int) (record & ((1 << InputRecorder.CODE_BITS) - 1));
+                if (code == InputRecorder.END_CODE) {
+                    this.score = (int) readVarint(buffer);
+                    this.lives = (int) readVarint(buffer);
+                    this.status = STATUSES[buffer.get()];
+                    this.finished = true;
+                    this.endTick = recordTick;
+                    break;
+                }
+                ticks.add(recordTick);
+                directions.add(DIRECTIONS[code]);
+                tick = recordTick;
+            }
+        } catch (BufferUnderflowException e) {
+            // the last record was cut off, so the log ends with the whole input before it and is unfinished
+        }
+        if (!this.finished) {
+            this.endTick = tick;
+        }
+        this.ticks = ticks.stream().mapToInt(Integer::intValue).toArray();
+        this.directions = directions.toArray(new Direction[0]);
+    }
+
+    /*
+    Reads the seed, the settings and, from version 6 on, the maze of a log of the given version.
+     */
+    private void readHeader(ByteBuffer buffer, byte version) {
+        this.seed = buffer.getLong();
+        this.settings = new GameSettings();
+        // older logs count the mode limits in ticks of Constants.TIMELINE_DURATION
+        double limitUnit = version >= 7 ? 1 : Constants.TIMELINE_DURATION;
+        this.settings.setChaseLimit(buffer.getDouble() * limitUnit);
+        this.settings.setScatterLimit(buffer.getDouble() * limitUnit);
+        this.settings.setFrightenedLimit(buffer.getDouble() * limitUnit);
+        this.settings.setPenCount(buffer.getDouble());
+        this.settings.setTickDuration(buffer.getDouble());
+        if (version >= 2) {
+            this.settings.setPathingMode(PathingMode.values()[buffer.get()]);
+        }
+        if (version >= 3) {
+            this.settings.setGhostCount(buffer.getInt());
+        }
+        if (version >= 4) {
+            this.settings.setCollisionMode(CollisionMode.values()[buffer.get()]);
+        }
+        this.settings.setRandomMode(version >= 5 ? RandomMode.values()[buffer.get()] : RandomMode.SHARED);
+        if (version >= 6) {
+            this.hasMaze = true;
+            this.rows = buffer.getInt();
+            this.cols = buffer.getInt();
+            this.fingerprint = buffer.getLong();
+        }
+    }
+
+    /*
+    Reads a log file through a FileChannel.
+     */
+    public static Replay read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the whole file is in the buffer
+            }
+            buffer.flip();
+            return new Replay(buffer);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: java pacman.Replay [maze=<maze file>] <file or directory> ...");
+        }
+        Board board = null;
+        List<Path> paths = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("maze=")) {
+                board = MazeLoader.loadBoard(Paths.get(arg.substring("maze=".length())));
+                continue;
+            }
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.filter(file -> file.toString().endsWith(EXTENSION)).sorted().forEach(paths::add);
+                }
+            } else {
+                paths.add(path);
+            }
+        }
+        if (board == null) {
+            board = Board.fromSupportMap();
+        }
+        int mismatches = 0;
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for (Path path : paths) {
+            Replay replay = Replay.read(path);
+            Game game;
+            try {
+                game = replay.newGame(board);
+            } catch (IllegalArgumentException e) {
+                mismatches++;
+                System.out.println(path + ": " + e.getMessage());
+                continue;
+            }
+            totalTicks += replay.play(game);
+            if (!replay.matches(game)) {
+                mismatches++;
+                System.out.println(path + ": expected " + replay.describeExpected() + " but got score "
+                        + game.getScore() + " lives " + game.getLives() + " " + game.getStatus());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("replayed %d recordings, %,d ticks in %.2f s (%,.0f ticks/s), %d mismatches%n",
+                paths.size(), totalTicks, seconds, totalTicks / seconds, mismatches);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /*
+    Creates a new game with the recorded seed and settings on the given board, which must be the board the game was
+    recorded on. Throws IllegalArgumentException when the log names its maze and the board has other dimensions or
+    another fingerprint.
+     */
+    public Game newGame(Board board) {
+        if (this.hasMaze && (board.getRows() != this.rows || board.getCols() != this.cols
+                || board.getFingerprint() != this.fingerprint)) {
+            throw new IllegalArgumentException("Recorded on a " + this.rows + "x" + this.cols
+                    + " maze with fingerprint " + Long.toHexString(this.fingerprint) + ", not on this "
+                    + board.getRows() + "x" + board.getCols() + " maze with fingerprint "
+                    + Long.toHexString(board.getFingerprint()));
+        }
+        return new Game(board, this.settings, this.seed);
+    }
+
+    /*
+    Plays the recording on a game created by newGame, giving each input before its tick, until the tick the
+    recording ended at or the end of the game. Returns the number of ticks played.
+     */
+    public int play(Game game) {
+        int next = 0;
+        while (game.getStatus() == GameStatus.PLAYING && game.getTick() < this.endTick) {
+            while (next < this.ticks.length && this.ticks[next] == game.getTick()) {
+                game.handleInput(this.directions[next]);
+                next++;
+            }
+            game.updateGame();
+        }
+        return game.getTick();
+    }
+
+    /*
+    Returns whether a played game reached the recorded result. A recording without a closing record always
+    matches, since its result is unknown.
+     */
+    public boolean matches(Game game) {
+        return !this.finished || (game.getScore() == this.score && game.getLives() == this.lives
+                && game.getStatus() == this.status && game.getTick() == this.endTick);
+    }
+
+    /*
+    Describes the recorded result for reports.
+     */
+    private String describeExpected() {
+        return "score " + this.score + " lives " + this.lives + " " + this.status + " at tick " + this.endTick;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public GameSettings getSettings() {
+        return this.settings;
+    }
+
+    public int getInputCount() {
+        return this.ticks.length;
+    }
+
+    /*
+    Reads an unsigned LEB128 varint.
+     */
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
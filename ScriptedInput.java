@@ -0,0 +1,55 @@
+package pacman;
+
+/**
+ * Steers pacman with a fixed script of directions, one entry per tick the actors move on (every tick with the
+ * default tick), starting again from the beginning when the script runs out. A null entry presses nothing on that
+ * tick.
+ */
+public class ScriptedInput implements PacmanInput {
+
+    private Direction[] script;
+    private int tick;
+
+    public ScriptedInput(Direction[] script) {
+        this.script = script;
+        this.tick = 0;
+    }
+
+    /*
+    Parses a script written with one letter per tick: L, R, U, D for the arrow keys and '.' for no key.
+     */
+    public static ScriptedInput parse(String letters) {
+        Direction[] script = new Direction[letters.length()];
+        for (int i = 0; i < letters.length(); i++) {
+            switch (letters.charAt(i)) {
+                case 'L':
+                    script[i] = Direction.LEFT;
+                    break;
+                case 'R':
+                    script[i] = Direction.RIGHT;
+                    break;
+                case 'U':
+                    script[i] = Direction.UP;
+                    break;
+                case 'D':
+                    script[i] = Direction.DOWN;
+                    break;
+                case '.':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Scripts may only contain L, R, U, D and '.': " + letters);
+            }
+        }
+        return new ScriptedInput(script);
+    }
+
+    @Override
+    public Direction nextInput(Game game) {
+        if (!game.isMoveDue()) {
+            return null;
+        }
+        Direction direction = this.script[this.tick % this.script.length];
+        this.tick++;
+        return direction;
+    }
+}
@@ -0,0 +1,69 @@
+package pacman;
+
+import java.util.Random;
+
+/**
+ * The generator of RandomMode.SHARED, which every ghost of a game draws from in turn: split returns the generator
+ * itself. It draws exactly the same numbers as java.util.Random with the same seed, following the linear congruential
+ * generator documented there, but keeps its 48-bit state in a field the game can read and set. This is how every game
+ * drew its random moves before ghosts had generators of their own, and recordings made then are replayed with it.
+ */
+public class SharedRandom extends Random implements GameRandom {
+
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    public SharedRandom(long seed) {
+        super(seed);
+    }
+
+    /*
+    Scrambles the seed the same way java.util.Random does. Also called by the constructor of Random.
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /*
+    Advances the generator and returns its top bits, as java.util.Random does. Every other method of Random draws
+    through this one.
+     */
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    /*
+    Returns this generator, which all the ghosts share.
+     */
+    @Override
+    public GameRandom split() {
+        return this;
+    }
+
+    /*
+    Draws nothing, since the generator split off this one is this one.
+     */
+    @Override
+    public void splitInto(GameRandom child) {
+    }
+
+    /*
+    Returns the current 48-bit state of the generator.
+     */
+    @Override
+    public long getState() {
+        return this.state;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,91 @@
+package pacman;
+
+/**
+ * The generator of RandomMode.PER_GHOST: SplitMix64, the algorithm of java.util.SplittableRandom, drawing exactly the
+ * same numbers as a SplittableRandom constructed with the same seed. Unlike SplittableRandom it keeps its state in a
+ * field the game can read and set, and it splits with the same fixed gamma, so that each generator is a single long:
+ * a split generator is seeded with the next long drawn from its parent. Nothing is shared or synchronized, so ghosts
+ * of games running on different threads, or ghosts of one game deciding in parallel, never contend for a generator.
+ */
+public final class SplitMixRandom implements GameRandom {
+
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public SplitMixRandom(long seed) {
+        this.state = seed;
+    }
+
+    /*
+    Advances the state by the gamma and returns it mixed into 64 random bits, as SplittableRandom.nextLong does.
+     */
+    public long nextLong() {
+        this.state += GOLDEN_GAMMA;
+        return mix64(this.state);
+    }
+
+    /*
+    Draws a number below the bound as SplittableRandom.nextInt(bound) does: the low bits of 32 random bits when the
+    bound is a power of two, otherwise 31 random bits modulo the bound, rejecting draws that would favour low results.
+     */
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        this.state += GOLDEN_GAMMA;
+        int r = mix32(this.state);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; ) {
+            this.state += GOLDEN_GAMMA;
+            u = mix32(this.state) >>> 1;
+        }
+        return r;
+    }
+
+    @Override
+    public GameRandom split() {
+        return new SplitMixRandom(this.nextLong());
+    }
+
+    @Override
+    public void splitInto(GameRandom child) {
+        child.setState(this.nextLong());
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public long getState() {
+        return this.state;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /*
+    The output function of SplitMix64 (Stafford's variant 13), shared with GameBatch.
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /*
+    The 32-bit output function of SplittableRandom.nextInt, shared with GameBatch.
+     */
+    static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
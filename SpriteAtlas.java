@@ -0,0 +1,199 @@
+package pacman;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * One image holding every animation frame of pacman and the ghosts, rasterised once when the renderer starts, so
+ * that actors are drawn by ImageViews that only switch the viewport they show. The first row holds pacman facing
+ * each direction with its mouth closing in MOUTH_FRAMES steps; the second holds each ghost colour, then the
+ * frightened ghost, each with SKIRT_FRAMES positions of the wavy skirt. Frames are one square wide and high.
+ *
+ * The shapes are drawn from Constants rather than loaded from a file, with every pixel averaged over a grid of
+ * samples so that the edges are smooth. The viewports are created with the atlas, so choosing a frame allocates
+ * nothing.
+ */
+public class SpriteAtlas {
+
+    public static final int MOUTH_FRAMES = 4;
+    public static final int SKIRT_FRAMES = 2;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int SAMPLES = 4; // samples per pixel along each axis
+    private static final int TRANSPARENT = 0;
+
+    private WritableImage image;
+    private int[] pixels;
+    private int width;
+    private Rectangle2D[][] pacmanFrames; // indexed by direction ordinal, then mouth frame
+    private Rectangle2D[][] ghostFrames; // indexed by colour, with the frightened ghost last, then skirt frame
+
+    /*
+    Rasterises the frames of pacman and of ghosts in the given colours and in the frightened colour.
+     */
+    public SpriteAtlas(Color[] ghostColors, Color frightenedColor) {
+        int size = Constants.SQ_WIDTH;
+        int columns = Math.max(DIRECTIONS.length * MOUTH_FRAMES, (ghostColors.length + 1) * SKIRT_FRAMES);
+        this.width = columns * size;
+        this.pixels = new int[this.width * 2 * size];
+
+        this.pacmanFrames = new Rectangle2D[DIRECTIONS.length][MOUTH_FRAMES];
+        for (Direction direction : DIRECTIONS) {
+            for (int mouth = 0; mouth < MOUTH_FRAMES; mouth++) {
+                int column = direction.ordinal() * MOUTH_FRAMES + mouth;
+                this.paint(column, 0, pacmanPainter(direction, mouth));
+                this.pacmanFrames[direction.ordinal()][mouth] = frame(column, 0);
+            }
+        }
+        this.ghostFrames = new Rectangle2D[ghostColors.length + 1][SKIRT_FRAMES];
+        for (int colour = 0; colour <= ghostColors.length; colour++) {
+            boolean frightened = colour == ghostColors.length;
+            for (int step = 0; step < SKIRT_FRAMES; step++) {
+                int column = colour * SKIRT_FRAMES + step;
+                this.paint(column, 1, ghostPainter(frightened ? frightenedColor : ghostColors[colour], step, frightened));
+                this.ghostFrames[colour][step] = frame(column, 1);
+            }
+        }
+
+        this.image = new WritableImage(this.width, 2 * size);
+        this.image.getPixelWriter().setPixels(0, 0, this.width, 2 * size, PixelFormat.getIntArgbInstance(),
+                this.pixels, 0, this.width);
+        this.pixels = null; // only needed while rasterising
+    }
+
+    public Image getImage() {
+        return this.image;
+    }
+
+    /*
+    Returns the viewport of pacman facing a direction, with mouth frame 0 closed and the last one widest open.
+     */
+    public Rectangle2D pacman(Direction direction, int mouth) {
+        return this.pacmanFrames[direction.ordinal()][mouth];
+    }
+
+    /*
+    Returns the viewport of a ghost in one of the colours the atlas was made with, at a step of its skirt.
+     */
+    public Rectangle2D ghost(int colour, int step) {
+        return this.ghostFrames[colour][step];
+    }
+
+    /*
+    Returns the viewport of a frightened ghost at a step of its skirt.
+     */
+    public Rectangle2D frightenedGhost(int step) {
+        return this.ghostFrames[this.ghostFrames.length - 1][step];
+    }
+
+    /**
+     * Colour of a shape at a point given relative to the centre of its frame, in pixels, as ARGB.
+     */
+    private interface Painter {
+        int argb(double x, double y);
+    }
+
+    /*
+    Fills one frame of the atlas, averaging the painter over SAMPLES x SAMPLES points in every pixel.
+     */
+    private void paint(int column, int row, Painter painter) {
+        int size = Constants.SQ_WIDTH;
+        double centre = size / 2.0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                long alpha = 0;
+                long red = 0;
+                long green = 0;
+                long blue = 0;
+                for (int sy = 0; sy < SAMPLES; sy++) {
+                    for (int sx = 0; sx < SAMPLES; sx++) {
+                        int argb = painter.argb(x + (sx + 0.5) / SAMPLES - centre, y + (sy + 0.5) / SAMPLES - centre);
+                        int a = argb >>> 24;
+                        // weigh each colour by its alpha so that transparent samples do not darken the edge
+                        alpha += a;
+                        red += a * ((argb >> 16) & 0xff);
+                        green += a * ((argb >> 8) & 0xff);
+                        blue += a * (argb & 0xff);
+                    }
+                }
+                int argb = TRANSPARENT;
+                if (alpha > 0) {
+                    argb = (int) (alpha / (SAMPLES * SAMPLES)) << 24 | (int) (red / alpha) << 16
+                            | (int) (green / alpha) << 8 | (int) (blue / alpha);
+                }
+                this.pixels[(row * size + y) * this.width + column * size + x] = argb;
+            }
+        }
+    }
+
+    /*
+    Returns the viewport of the frame at a column and row of the atlas.
+     */
+    private static Rectangle2D frame(int column, int row) {
+        return new Rectangle2D(column * Constants.SQ_WIDTH, row * Constants.SQ_WIDTH,
+                Constants.SQ_WIDTH, Constants.SQ_WIDTH);
+    }
+
+    /*
+    Pacman is a disc with a wedge cut out towards the direction it faces, the wedge widening with the mouth frame.
+     */
+    private static Painter pacmanPainter(Direction direction, int mouth) {
+        int colour = argb(Constants.PACMAN_COLOR);
+        double radius = Constants.PACMAN_RADIUS;
+        double halfAngle = Math.toRadians(Constants.PACMAN_MOUTH_DEGREES / 2.0 * mouth / (MOUTH_FRAMES - 1));
+        double facingX = direction.newCol(0);
+        double facingY = direction.newRow(0);
+        return (x, y) -> {
+            double distance = Math.sqrt(x * x + y * y);
+            if (distance > radius) {
+                return TRANSPARENT;
+            }
+            boolean inMouth = mouth > 0 && (x * facingX + y * facingY) > distance * Math.cos(halfAngle);
+            return inMouth ? TRANSPARENT : colour;
+        };
+    }
+
+    /*
+    A ghost is a dome over a body whose bottom edge is a zigzag, shifted by half a tooth on every other step, with
+    two eyes. Frightened ghosts have small pale eyes instead.
+     */
+    private static Painter ghostPainter(Color color, int step, boolean frightened) {
+        int body = argb(color);
+        int eye = argb(Constants.GHOST_EYE_COLOR);
+        int pupil = argb(Constants.GHOST_PUPIL_COLOR);
+        double radius = Constants.SQ_WIDTH / 2.0 - 1;
+        double tooth = 2 * radius / Constants.GHOST_SKIRT_TEETH;
+        double depth = radius / 4;
+        double eyeX = radius * 0.4;
+        double eyeY = -radius * 0.2;
+        double eyeRadius = frightened ? radius * 0.12 : radius * 0.28;
+        double pupilRadius = radius * 0.13;
+        return (x, y) -> {
+            double eyeLeft = (x + eyeX) * (x + eyeX) + (y - eyeY) * (y - eyeY);
+            double eyeRight = (x - eyeX) * (x - eyeX) + (y - eyeY) * (y - eyeY);
+            double eyeDistance = Math.min(eyeLeft, eyeRight);
+            if (!frightened && eyeDistance <= pupilRadius * pupilRadius) {
+                return pupil;
+            }
+            if (eyeDistance <= eyeRadius * eyeRadius) {
+                return eye;
+            }
+            if (y <= 0) {
+                return x * x + y * y <= radius * radius ? body : TRANSPARENT;
+            }
+            double phase = ((x + radius) / tooth + step * 0.5) % 1;
+            double edge = radius - depth * (1 - Math.abs(2 * phase - 1));
+            return Math.abs(x) <= radius && y <= edge ? body : TRANSPARENT;
+        };
+    }
+
+    /*
+    Converts a colour to ARGB.
+     */
+    private static int argb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24 | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
+    }
+}
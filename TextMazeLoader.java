@@ -0,0 +1,134 @@
+package pacman;
+
+import cs15.fnl.pacmanSupport.CS15SquareType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes mazes as text. A maze file has optional header lines followed by one line per row of the board:
+ *
+ *   ; comment
+ *   tunnel 11        row on which pacman and the ghosts wrap (no tunnel when missing)
+ *   pen 10 10        row and column where eaten ghosts wait (the ghost start when missing)
+ *   exit 8 11        row and column where ghosts leave the pen (the ghost start when missing)
+ *   #####
+ *   #.oP#            # wall, _ free, . dot, o energizer, P pacman start, G ghost start
+ *
+ * Every row must have the same length.
+ */
+public class TextMazeLoader implements MazeLoader {
+
+    public static final String EXTENSION = ".maze";
+    private static final String SQUARE_CHARS = "#_.oPG";
+    // the binary format stores each square as its position in this array
+    static final CS15SquareType[] SQUARE_TYPES = {CS15SquareType.WALL, CS15SquareType.FREE,
+            CS15SquareType.DOT, CS15SquareType.ENERGIZER, CS15SquareType.PACMAN_START_LOCATION,
+            CS15SquareType.GHOST_START_LOCATION};
+
+    @Override
+    public Board load(Path path) throws IOException {
+        return parse(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /*
+    Builds a board from the lines of a maze file.
+     */
+    public static Board parse(List<String> lines) {
+        int tunnelRow = -1;
+        int[] pen = null;
+        int[] exit = null;
+        List<CS15SquareType[]> rows = new ArrayList<>();
+        for (String line : lines) {
+            String[] words = line.trim().split("\\s+");
+            if (line.isBlank() || line.startsWith(";")) {
+                continue;
+            } else if (words[0].equals("tunnel")) {
+                tunnelRow = Integer.parseInt(words[1]);
+            } else if (words[0].equals("pen")) {
+                pen = new int[] {Integer.parseInt(words[1]), Integer.parseInt(words[2])};
+            } else if (words[0].equals("exit")) {
+                exit = new int[] {Integer.parseInt(words[1]), Integer.parseInt(words[2])};
+            } else {
+                rows.add(parseRow(line, rows.size()));
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("The maze has no rows");
+        }
+        CS15SquareType[][] squares = rows.toArray(new CS15SquareType[0][]);
+        int[] ghostStart = findGhostStart(squares);
+        if (pen == null) {
+            pen = ghostStart;
+        }
+        if (exit == null) {
+            exit = ghostStart;
+        }
+        return new Board(squares, tunnelRow, pen[0], pen[1], exit[0], exit[1]);
+    }
+
+    /*
+    Writes a board in the text format.
+     */
+    public static void write(Board board, Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (board.getTunnelRow() >= 0) {
+            lines.add("tunnel " + board.getTunnelRow());
+        }
+        lines.add("pen " + board.getPenRow() + " " + board.getPenCol());
+        lines.add("exit " + board.getPenExitRow() + " " + board.getPenExitCol());
+        for (int row = 0; row < board.getRows(); row++) {
+            StringBuilder line = new StringBuilder(board.getCols());
+            for (int col = 0; col < board.getCols(); col++) {
+                line.append(SQUARE_CHARS.charAt(indexOf(board.getSquareType(row, col))));
+            }
+            lines.add(line.toString());
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    /*
+    Converts one line of squares, throwing IllegalArgumentException for unknown characters.
+     */
+    private static CS15SquareType[] parseRow(String line, int row) {
+        CS15SquareType[] squares = new CS15SquareType[line.length()];
+        for (int col = 0; col < line.length(); col++) {
+            int type = SQUARE_CHARS.indexOf(line.charAt(col));
+            if (type < 0) {
+                throw new IllegalArgumentException("Unknown square '" + line.charAt(col) + "' at row " + row
+                        + " column " + col);
+            }
+            squares[col] = SQUARE_TYPES[type];
+        }
+        return squares;
+    }
+
+    /*
+    Returns the row and column of the ghost start, or {0, 0} when there is none and the board will reject the maze.
+     */
+    private static int[] findGhostStart(CS15SquareType[][] squares) {
+        for (int row = 0; row < squares.length; row++) {
+            for (int col = 0; col < squares[row].length; col++) {
+                if (squares[row][col] == CS15SquareType.GHOST_START_LOCATION) {
+                    return new int[] {row, col};
+                }
+            }
+        }
+        return new int[] {0, 0};
+    }
+
+    /*
+    Returns the position of a square type in SQUARE_TYPES.
+     */
+    static int indexOf(CS15SquareType type) {
+        for (int i = 0; i < SQUARE_TYPES.length; i++) {
+            if (SQUARE_TYPES[i] == type) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown square type " + type);
+    }
+}
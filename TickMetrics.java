@@ -0,0 +1,219 @@
+package pacman;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Timing and allocation counters for the phases of Game.updateGame. A game with metrics attached calls startTick
+ * before its first phase, endPhase after each phase and endTick at the end, and every phase and the whole tick get
+ * a latency histogram. Where the JVM supports it, the bytes allocated by the game thread are counted per phase.
+ *
+ * Subscribed to a game's event bus, it also counts the game's events by type.
+ *
+ * One instance records a single game on a single thread; any thread may read it. Games without metrics attached
+ * skip all of this, so headless batches pay nothing.
+ */
+public class TickMetrics implements TickMetricsMXBean, GameEventListener {
+
+    private static final TickPhase[] PHASES = TickPhase.values();
+    private static final GameEvent[] EVENTS = GameEvent.values();
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+
+    private LatencyHistogram tickHistogram;
+    private LatencyHistogram[] phaseHistograms;
+    private AtomicLongArray allocatedBytes;
+    private AtomicLongArray eventCounts;
+    private com.sun.management.ThreadMXBean threads; // null when allocation counting is not supported
+    private long tickStart;
+    private long phaseStart;
+    private long allocationStart;
+
+    public TickMetrics() {
+        this.tickHistogram = new LatencyHistogram();
+        this.phaseHistograms = new LatencyHistogram[PHASES.length];
+        for (int i = 0; i < PHASES.length; i++) {
+            this.phaseHistograms[i] = new LatencyHistogram();
+        }
+        this.allocatedBytes = new AtomicLongArray(PHASES.length);
+        this.eventCounts = new AtomicLongArray(EVENTS.length);
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /*
+    Registers these metrics with the platform MBean server under pacman:type=TickMetrics,name=<name>.
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("pacman:type=TickMetrics,name=" + name));
+    }
+
+    /*
+    Marks the start of a tick and of its first phase.
+     */
+    public void startTick() {
+        this.tickStart = System.nanoTime();
+        this.phaseStart = this.tickStart;
+        this.allocationStart = this.allocatedBytes();
+    }
+
+    /*
+    Records the time and allocation since the previous mark against the given phase, which may be recorded more
+    than once in a tick.
+     */
+    public void endPhase(TickPhase phase) {
+        long now = System.nanoTime();
+        long allocated = this.allocatedBytes();
+        this.phaseHistograms[phase.ordinal()].record(now - this.phaseStart);
+        this.allocatedBytes.lazySet(phase.ordinal(),
+                this.allocatedBytes.get(phase.ordinal()) + allocated - this.allocationStart);
+        this.phaseStart = now;
+        this.allocationStart = allocated;
+    }
+
+    /*
+    Records the time of the whole tick.
+     */
+    public void endTick() {
+        this.tickHistogram.record(System.nanoTime() - this.tickStart);
+    }
+
+    /*
+    Counts an event drained from the game's event bus.
+     */
+    @Override
+    public void onEvent(GameEvent event, int value, int tick) {
+        this.eventCounts.lazySet(event.ordinal(), this.eventCounts.get(event.ordinal()) + 1);
+    }
+
+    /*
+    Returns the histogram of whole ticks.
+     */
+    public LatencyHistogram getTickHistogram() {
+        return this.tickHistogram;
+    }
+
+    /*
+    Returns the histogram of one phase.
+     */
+    public LatencyHistogram getPhaseHistogram(TickPhase phase) {
+        return this.phaseHistograms[phase.ordinal()];
+    }
+
+    @Override
+    public long getTicks() {
+        return this.tickHistogram.getCount();
+    }
+
+    @Override
+    public double getTickMeanNanos() {
+        return this.tickHistogram.getMean();
+    }
+
+    @Override
+    public long getTickP50Nanos() {
+        return this.tickHistogram.getPercentile(P50);
+    }
+
+    @Override
+    public long getTickP99Nanos() {
+        return this.tickHistogram.getPercentile(P99);
+    }
+
+    @Override
+    public long getTickMaxNanos() {
+        return this.tickHistogram.getMax();
+    }
+
+    @Override
+    public Map<String, Double> getPhaseMeanNanos() {
+        Map<String, Double> means = new LinkedHashMap<>();
+        for (TickPhase phase : PHASES) {
+            means.put(phase.name(), this.getPhaseHistogram(phase).getMean());
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseP99Nanos() {
+        Map<String, Long> percentiles = new LinkedHashMap<>();
+        for (TickPhase phase : PHASES) {
+            percentiles.put(phase.name(), this.getPhaseHistogram(phase).getPercentile(P99));
+        }
+        return percentiles;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseAllocatedBytes() {
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        for (TickPhase phase : PHASES) {
+            bytes.put(phase.name(), this.allocatedBytes.get(phase.ordinal()));
+        }
+        return bytes;
+    }
+
+    @Override
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (GameEvent event : EVENTS) {
+            counts.put(event.name(), this.eventCounts.get(event.ordinal()));
+        }
+        return counts;
+    }
+
+    /*
+    Returns the phase that has taken the most time in total, or null before the first tick.
+     */
+    @Override
+    public String getSlowestPhase() {
+        TickPhase slowest = null;
+        double slowestTotal = 0;
+        for (TickPhase phase : PHASES) {
+            LatencyHistogram histogram = this.getPhaseHistogram(phase);
+            double total = histogram.getMean() * histogram.getCount();
+            if (total > slowestTotal) {
+                slowestTotal = total;
+                slowest = phase;
+            }
+        }
+        return slowest == null ? null : slowest.name();
+    }
+
+    @Override
+    public void reset() {
+        this.tickHistogram.reset();
+        for (int i = 0; i < PHASES.length; i++) {
+            this.phaseHistograms[i].reset();
+            this.allocatedBytes.set(i, 0);
+        }
+        for (int i = 0; i < EVENTS.length; i++) {
+            this.eventCounts.set(i, 0);
+        }
+    }
+
+    /*
+    Summarises the metrics on one line for the overlay.
+     */
+    @Override
+    public String toString() {
+        return String.format("tick p50 %.1f us  p99 %.1f us  max %.1f us  slowest %s",
+                this.getTickP50Nanos() / 1e3, this.getTickP99Nanos() / 1e3, this.getTickMaxNanos() / 1e3,
+                this.getSlowestPhase());
+    }
+
+    /*
+    Returns the bytes allocated by the current thread so far, or 0 when allocation counting is not supported.
+     */
+    private long allocatedBytes() {
+        return this.threads == null ? 0 : this.threads.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,32 @@
+package pacman;
+
+import java.util.Map;
+
+/**
+ * Management interface of TickMetrics, so that tick cost can be watched from JConsole or any JMX client while the
+ * game runs. Phase values are keyed by the names of TickPhase.
+ */
+public interface TickMetricsMXBean {
+
+    long getTicks();
+
+    double getTickMeanNanos();
+
+    long getTickP50Nanos();
+
+    long getTickP99Nanos();
+
+    long getTickMaxNanos();
+
+    Map<String, Double> getPhaseMeanNanos();
+
+    Map<String, Long> getPhaseP99Nanos();
+
+    Map<String, Long> getPhaseAllocatedBytes();
+
+    String getSlowestPhase();
+
+    Map<String, Long> getEventCounts();
+
+    void reset();
+}
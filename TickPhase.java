@@ -0,0 +1,10 @@
+package pacman;
+
+/**
+ * Named phases of one call to Game.updateGame, in the order they run. Both collision checks of a tick are counted
+ * as the collide phase, the ghost phase covers switching game modes and every ghost's pathing, and the update lives
+ * phase includes draining the tick's events.
+ */
+public enum TickPhase {
+    INITIALISE_PEN, MOVE_PACMAN, COLLIDE, GHOSTS, UPDATE_LIVES
+}
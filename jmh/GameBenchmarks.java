@@ -0,0 +1,337 @@
+package pacman;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for the hot paths of a tick on the standard support map: the ghost BFS against fixed targets, the
+ * random direction used in frightened mode, a whole ghost decision, collisions on a square holding several
+ * collideables, and one full updateGame with and without tick metrics and with swept collisions. With the gc
+ * profiler that the build turns on, each benchmark reports allocation per operation as well as time.
+ *
+ * Full ticks are also timed with more and more ghosts in each pathing mode, to show how the cost of a tick grows with
+ * the number of ghosts, and with the ghosts deciding in parallel on the common pool. Last, a batch of games is
+ * stepped one Game at a time and as a GameBatch, reported per game-tick. That what is measured plays exactly like the
+ * plain game (parallel ghosts like sequential ones, a batch like single games) is checked by the tests, not here.
+ *
+ * Run with: gradle jmh -PjmhIncludes=GameBenchmarks
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GameBenchmarks {
+
+    // the four corner targets used in scatter mode
+    private static final int[][] BFS_TARGETS = {{1, 1}, {1, Constants.RIGHT_EXTREMA},
+            {Constants.RIGHT_EXTREMA, 1}, {Constants.RIGHT_EXTREMA, Constants.RIGHT_EXTREMA}};
+    private static final long SEED = 15;
+    private static final int BATCH_GAMES = 1024;
+    private static final int BATCH_INPUT_TICKS = 1024;
+    private static final double BATCH_INPUT_CHANCE = 0.25;
+
+    /**
+     * A ghost of a fresh game on the support map, standing at pacman's start square for every operation.
+     */
+    @State(Scope.Thread)
+    public static class GhostState {
+
+        Board board;
+        Game game;
+        Ghost ghost;
+        int row;
+        int col;
+        BoardCoordinate[] targets;
+        int next;
+
+        @Setup
+        public void setUp() {
+            this.board = Board.fromSupportMap();
+            this.game = new Game(this.board, new GameSettings(), SEED);
+            this.ghost = this.game.getGhosts()[0];
+            this.row = this.board.getPacmanStartRow();
+            this.col = this.board.getPacmanStartCol();
+            this.ghost.setGhostLoc(this.row, this.col);
+            this.targets = new BoardCoordinate[BFS_TARGETS.length];
+            for (int i = 0; i < this.targets.length; i++) {
+                this.targets[i] = new BoardCoordinate(BFS_TARGETS[i][0], BFS_TARGETS[i][1], true);
+            }
+        }
+    }
+
+    /**
+     * A game whose pacman square is filled with a dot and every ghost before each collision.
+     */
+    @State(Scope.Thread)
+    public static class CollideState {
+
+        Game game;
+        int square;
+        int ghosts;
+
+        @Setup
+        public void setUp() {
+            Board board = Board.fromSupportMap();
+            this.game = new Game(board, new GameSettings(), SEED);
+            Pacman pacman = this.game.getPacman();
+            this.square = board.squareIndex(pacman.getRow(), pacman.getCol());
+            this.ghosts = this.game.getGhosts().length;
+        }
+    }
+
+    /**
+     * A seeded game played tick by tick with seeded random input. When a game ends it is restored from a snapshot of
+     * its first tick, so the run plays the same games every time, and the input plays on, so they are new games.
+     */
+    public abstract static class PlayState {
+
+        Board board;
+        GameSettings settings;
+        TickMetrics metrics;
+        ForkJoinPool pool;
+        Game game;
+        GameSnapshot first;
+        PacmanInput input;
+
+        /*
+        Starts the first game with the given settings, recording into the metrics and deciding on the pool when
+        they are not null.
+         */
+        void start(GameSettings settings, TickMetrics metrics, ForkJoinPool pool) {
+            this.board = Board.fromSupportMap();
+            this.settings = settings;
+            this.metrics = metrics;
+            this.pool = pool;
+            this.input = new RandomInput(SEED);
+            this.game = new Game(this.board, settings, SEED);
+            this.game.setMetrics(metrics);
+            this.game.setGhostPool(pool);
+            this.first = this.game.snapshot();
+        }
+
+        /*
+        Runs one full tick, first restoring the first tick if the last game ended.
+         */
+        int tick() {
+            if (this.game.getStatus() != GameStatus.PLAYING) {
+                this.game.restore(this.first);
+            }
+            Direction direction = this.input.nextInput(this.game);
+            if (direction != null) {
+                this.game.handleInput(direction);
+            }
+            this.game.updateGame();
+            return this.game.getScore();
+        }
+    }
+
+    /**
+     * The standard game, with or without tick metrics and with either collision mode.
+     */
+    @State(Scope.Thread)
+    public static class TickState extends PlayState {
+
+        @Param({"false", "true"})
+        boolean metrics;
+        @Param({"SQUARE", "SWEPT"})
+        CollisionMode collisions;
+
+        @Setup
+        public void setUp() {
+            GameSettings settings = new GameSettings();
+            settings.setCollisionMode(this.collisions);
+            this.start(settings, this.metrics ? new TickMetrics() : null, null);
+        }
+    }
+
+    /**
+     * Games with more and more ghosts in every pathing mode, the ghosts deciding one by one or in parallel on the
+     * common pool.
+     */
+    @State(Scope.Thread)
+    public static class ScalingState extends PlayState {
+
+        @Param({"CLASSIC", "HIERARCHICAL", "FLOW_FIELD"})
+        PathingMode pathing;
+        @Param({"4", "64", "256"})
+        int ghosts;
+        @Param({"false", "true"})
+        boolean parallel;
+
+        @Setup
+        public void setUp() {
+            GameSettings settings = new GameSettings();
+            settings.setPathingMode(this.pathing);
+            settings.setGhostCount(this.ghosts);
+            ForkJoinPool pool = this.parallel ? ForkJoinPool.commonPool() : null;
+            this.start(settings, null, pool);
+        }
+    }
+
+    /**
+     * The same games held as Game objects and in a GameBatch, with the inputs of every tick drawn up front so that
+     * neither pays for deciding them.
+     */
+    @State(Scope.Thread)
+    public static class BatchState {
+
+        Board board;
+        GameSettings settings;
+        byte[][] inputs;
+        Game[] games;
+        GameBatch batch;
+        int tick;
+
+        @Setup
+        public void setUp() {
+            this.board = Board.fromSupportMap();
+            this.settings = new GameSettings();
+            this.inputs = batchInputs();
+            this.games = new Game[BATCH_GAMES];
+            long[] seeds = new long[BATCH_GAMES];
+            for (int i = 0; i < BATCH_GAMES; i++) {
+                this.games[i] = new Game(this.board, this.settings, i);
+                seeds[i] = i;
+            }
+            this.batch = new GameBatch(this.board, this.settings, seeds);
+        }
+    }
+
+    /*
+    Runs the BFS for a ghost standing at pacman's start square, cycling through the four corner targets.
+     */
+    @Benchmark
+    public Direction ghostBFS(GhostState state) {
+        state.ghost.setGhostLoc(state.row, state.col);
+        return state.ghost.ghostBFS(state.targets[state.next++ % state.targets.length]);
+    }
+
+    /*
+    Picks a random direction for a ghost standing at pacman's start square.
+     */
+    @Benchmark
+    public Direction generateRandomDirection(GhostState state) {
+        return state.ghost.generateRandomDirection(state.row, state.col);
+    }
+
+    /*
+    Runs the whole decision of a ghost in chase mode, from leaving its square to entering the next one, starting
+    from pacman's start square each time and chasing the four corner targets in turn.
+     */
+    @Benchmark
+    public void generateDirection(GhostState state, Blackhole blackhole) {
+        state.ghost.setGhostLoc(state.row, state.col);
+        state.game.getOccupancy().add(state.ghost.getSlot(), state.board.squareIndex(state.row, state.col));
+        int[] target = BFS_TARGETS[state.next++ % BFS_TARGETS.length];
+        state.ghost.generateDirection(target[0], target[1]);
+        blackhole.consume(state.ghost.getRow());
+        blackhole.consume(state.ghost.getCol());
+    }
+
+    /*
+    Fills pacman's square with a dot and every ghost and lets pacman collide with them, then drains the event the
+    collision published. Filling the square is part of the measured operation, since a collision empties it.
+     */
+    @Benchmark
+    public int collide(CollideState state) {
+        state.game.addDot(state.square);
+        for (int i = 0; i < state.ghosts; i++) {
+            state.game.getOccupancy().add(i, state.square);
+        }
+        state.game.collide();
+        state.game.getEvents().drain();
+        return state.game.getScore();
+    }
+
+    /*
+    Runs one full tick of the standard game.
+     */
+    @Benchmark
+    public int updateGame(TickState state) {
+        return state.tick();
+    }
+
+    /*
+    Runs one full tick of a game with many ghosts.
+     */
+    @Benchmark
+    public int updateGameScaling(ScalingState state) {
+        return state.tick();
+    }
+
+    /*
+    Runs one tick of every game in an array of Game objects, starting a new game in place of any that ended.
+    Reported per game-tick.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_GAMES)
+    public void updateGames(BatchState state, Blackhole blackhole) {
+        Direction[] directions = Direction.values();
+        byte[] input = state.inputs[state.tick++ % BATCH_INPUT_TICKS];
+        for (int i = 0; i < BATCH_GAMES; i++) {
+            Game game = state.games[i];
+            if (game.getStatus() != GameStatus.PLAYING) {
+                game = new Game(state.board, state.settings, i + state.tick);
+                state.games[i] = game;
+            }
+            if (input[i] >= 0) {
+                game.handleInput(directions[input[i]]);
+            }
+            game.updateGame();
+            blackhole.consume(game.getScore());
+        }
+    }
+
+    /*
+    Runs the same ticks as updateGames, with the same inputs and restarts, on a GameBatch. Reported per game-tick.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_GAMES)
+    public void stepBatch(BatchState state, Blackhole blackhole) {
+        Direction[] directions = Direction.values();
+        GameBatch batch = state.batch;
+        byte[] input = state.inputs[state.tick++ % BATCH_INPUT_TICKS];
+        for (int i = 0; i < BATCH_GAMES; i++) {
+            if (batch.getStatus(i) != GameStatus.PLAYING) {
+                batch.restart(i, i + state.tick);
+            }
+            if (input[i] >= 0) {
+                batch.handleInput(i, directions[input[i]]);
+            }
+        }
+        batch.step();
+        for (int i = 0; i < BATCH_GAMES; i++) {
+            blackhole.consume(batch.getScore(i));
+        }
+    }
+
+    /*
+    Draws the inputs shared by both batch benchmarks: for every tick and game, the ordinal of a direction or -1 for
+    none.
+     */
+    private static byte[][] batchInputs() {
+        Random random = new Random(SEED);
+        byte[][] inputs = new byte[BATCH_INPUT_TICKS][BATCH_GAMES];
+        for (byte[] tick : inputs) {
+            for (int i = 0; i < tick.length; i++) {
+                tick[i] = (byte) (random.nextDouble() < BATCH_INPUT_CHANCE ? random.nextInt(4) : -1);
+            }
+        }
+        return inputs;
+    }
+}
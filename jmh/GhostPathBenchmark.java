@@ -0,0 +1,81 @@
+package pacman;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark for ghost decisions: each benchmark makes one decision per operation with the classic BFS or the
+ * precomputed path table lookup. GhostPathTableTest checks that the two agree for every square, heading and target.
+ * Run with: gradle jmh -PjmhIncludes=GhostPathBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GhostPathBenchmark {
+
+    private static final int DECISIONS = 1 << 16;
+    // every heading a ghost can have, including null for a ghost without a direction
+    private static final Direction[] HEADINGS = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN, null};
+
+    private Board board;
+    private GhostPathTable table;
+    private int[][] queries;
+    private int next;
+
+    /*
+    Builds the table and draws a fixed sequence of decisions for both benchmarks.
+     */
+    @Setup
+    public void setUp() {
+        this.board = Board.fromSupportMap();
+        long buildStart = System.nanoTime();
+        this.table = new GhostPathTable(this.board);
+        System.out.printf("table built in %.1f ms%n", (System.nanoTime() - buildStart) / 1e6);
+        this.queries = randomQueries(this.table, DECISIONS);
+    }
+
+    @Benchmark
+    public Direction bfs() {
+        int[] query = this.queries[this.next++ % DECISIONS];
+        return ClassicSearch.direction(this.board, query[0], query[1], HEADINGS[query[2]], query[3], query[4]);
+    }
+
+    @Benchmark
+    public Direction table() {
+        int[] query = this.queries[this.next++ % DECISIONS];
+        return this.table.nextDirection(query[0], query[1], HEADINGS[query[2]], query[3], query[4]);
+    }
+
+    /*
+    Generates queries of the form {row, col, heading, targetRow, targetCol} for squares the table stores.
+     */
+    private static int[][] randomQueries(GhostPathTable table, int count) {
+        Random random = new Random(15);
+        int[][] queries = new int[count][];
+        int i = 0;
+        while (i < count) {
+            int row = random.nextInt(Constants.MAZE_DIMENSION);
+            int col = random.nextInt(Constants.MAZE_DIMENSION);
+            int targetRow = random.nextInt(Constants.MAZE_DIMENSION);
+            int targetCol = random.nextInt(Constants.MAZE_DIMENSION);
+            if (table.covers(row, col, targetRow, targetCol)) {
+                queries[i] = new int[] {row, col, random.nextInt(HEADINGS.length), targetRow, targetCol};
+                i++;
+            }
+        }
+        return queries;
+    }
+}
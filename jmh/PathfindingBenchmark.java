@@ -0,0 +1,76 @@
+package pacman;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark for shortest-path ghost decisions on boards of growing size: the support map (23x23) and generated
+ * mazes of 101x101 and 501x501 squares. For each board the setup reports the time to build the pathfinder; each
+ * benchmark then answers one random query per operation with the search over the junction graph or a BFS over every
+ * square. HierarchicalPathfinderTest checks that the two agree.
+ * Run with: gradle jmh -PjmhIncludes=PathfindingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathfindingBenchmark {
+
+    private static final int QUERIES = 2_000;
+    private static final int SUPPORT_MAP_SIZE = 23;
+    private static final long MAZE_SEED = 15;
+    private static final Direction[] HEADINGS = SquareSearch.HEADINGS;
+
+    @Param({"23", "101", "501"})
+    int size;
+
+    private int[][] samples;
+    private HierarchicalPathfinder.Search search;
+    private SquareSearch squares;
+    private int next;
+
+    /*
+    Builds the pathfinder for the board of the benchmark's size and draws the queries.
+     */
+    @Setup
+    public void setUp() {
+        Board board = this.size == SUPPORT_MAP_SIZE ? Board.fromSupportMap()
+                : MazeGenerator.generate(this.size, MAZE_SEED);
+        long buildStart = System.nanoTime();
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(board);
+        JunctionGraph graph = pathfinder.getGraph();
+        System.out.printf("%dx%d: %d junctions, %d corridors, built in %.1f ms%n", this.size, this.size,
+                graph.getNodeCount(), graph.getEdgeCount(), (System.nanoTime() - buildStart) / 1e6);
+
+        this.samples = SquareSearch.randomQueries(graph, QUERIES, MAZE_SEED);
+        this.search = pathfinder.new Search();
+        this.squares = new SquareSearch(graph);
+    }
+
+    /*
+    Each benchmark answers the next query in turn, so the results are per decision.
+     */
+    @Benchmark
+    public int squareBFS() {
+        int[] query = this.samples[this.next++ % this.samples.length];
+        return this.squares.distance(query[0], query[1], HEADINGS[query[2]], query[3], query[4]);
+    }
+
+    @Benchmark
+    public Direction junctionSearch() {
+        int[] query = this.samples[this.next++ % this.samples.length];
+        return this.search.nextDirection(query[0], query[1], HEADINGS[query[2]], query[3], query[4]);
+    }
+}
@@ -0,0 +1,81 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import cs15.fnl.pacmanSupport.CS15SquareType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the bitboard operations across word boundaries, and that the layers the board and the game keep as
+ * bitboards match the squares of the maze.
+ */
+class BitboardTest {
+
+    private static final int SQUARES = 23 * 23;
+
+    @Test
+    void setsAndClearsSquaresInEveryWord() {
+        Bitboard bitboard = new Bitboard(SQUARES);
+        int[] squares = {0, 63, 64, 127, 128, SQUARES - 1};
+        for (int square : squares) {
+            bitboard.set(square);
+        }
+        assertEquals(squares.length, bitboard.popCount());
+        boolean[] expected = new boolean[SQUARES];
+        for (int square : squares) {
+            expected[square] = true;
+        }
+        for (int square = 0; square < SQUARES; square++) {
+            assertEquals(expected[square], bitboard.get(square), "square " + square);
+        }
+        for (int square : squares) {
+            bitboard.clear(square);
+        }
+        assertTrue(bitboard.isEmpty());
+    }
+
+    /*
+    Walking the differences between two sets visits exactly the squares in one of them only, in order.
+     */
+    @Test
+    void walksDifferencesInOrder() {
+        Bitboard first = new Bitboard(SQUARES);
+        Bitboard second = new Bitboard(SQUARES);
+        first.set(5);
+        first.set(200);
+        second.set(200);
+        second.set(64);
+        second.set(SQUARES - 1);
+        assertEquals(5, first.nextDifference(second, 0));
+        assertEquals(64, first.nextDifference(second, 6));
+        assertEquals(SQUARES - 1, first.nextDifference(second, 65));
+        assertEquals(-1, first.nextDifference(second, SQUARES));
+        Bitboard copy = first.copy();
+        assertEquals(first, copy);
+        copy.copyFrom(second);
+        assertEquals(second, copy);
+        assertFalse(copy.equals(first));
+    }
+
+    /*
+    The walls, dots and energizers of the support map are exactly its squares of those types, and a new game starts
+    with every dot and energizer of the board.
+     */
+    @Test
+    void layersMatchTheMaze() {
+        Board board = Board.fromSupportMap();
+        Game game = new Game(board, new GameSettings(), 1);
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                int square = board.squareIndex(row, col);
+                CS15SquareType type = board.getSquareType(row, col);
+                assertEquals(type == CS15SquareType.WALL, board.getWalls().get(square));
+                assertEquals(type == CS15SquareType.DOT, game.getDots().get(square));
+                assertEquals(type == CS15SquareType.ENERGIZER, game.getEnergizers().get(square));
+            }
+        }
+        assertEquals(board.getItemCount(), game.getDots().popCount() + game.getEnergizers().popCount());
+    }
+}
@@ -0,0 +1,57 @@
+package pacman;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+/**
+ * Reference for the classic ghost decision: the same search as the original Ghost.ghostBFS, including its
+ * allocations, working on a board instead of the maze. The path table is checked against it, and the JMH benchmarks
+ * time it against the table.
+ */
+final class ClassicSearch {
+
+    private ClassicSearch() {
+    }
+
+    /*
+    Returns the direction the original BFS chooses for a ghost on a square with a heading towards a target.
+     */
+    static Direction direction(Board board, int row, int col, Direction currDirection, int targetRow, int targetCol) {
+        int minDistance = Constants.MIN_DISTANCE;
+        Direction direction = null;
+        Direction[][] directions = new Direction[board.getRows()][board.getCols()];
+        Queue<BoardCoordinate> queue = new LinkedList<>();
+        BoardCoordinate currentLoc = new BoardCoordinate(row, col, true);
+        addValidNeighbour(board, directions, currDirection, currentLoc, true, queue);
+        while (!queue.isEmpty()) {
+            BoardCoordinate newLoc = queue.remove();
+            double distanceX = newLoc.getColumn() * Constants.SQ_WIDTH - targetCol * Constants.SQ_WIDTH;
+            double distanceY = newLoc.getRow() * Constants.SQ_WIDTH - targetRow * Constants.SQ_WIDTH;
+            double distance = Math.sqrt((distanceX * distanceX) + (distanceY * distanceY));
+            if (distance < minDistance) {
+                minDistance = (int) distance;
+                direction = directions[newLoc.getRow()][newLoc.getColumn()];
+            }
+            addValidNeighbour(board, directions, currDirection, currentLoc, false, queue);
+        }
+        return direction;
+    }
+
+    /*
+    Same neighbour expansion as Ghost.addValidNeighbour.
+     */
+    private static void addValidNeighbour(Board board, Direction[][] directions, Direction currDirection,
+                                          BoardCoordinate currentLoc, boolean isInitial, Queue<BoardCoordinate> queue) {
+        int row = currentLoc.getRow();
+        int col = currentLoc.getColumn();
+        for (Direction direction : Direction.values()) {
+            int newRow = direction.newRow(row);
+            int newCol = direction.newCol(col);
+            if (!board.isWall(newRow, newCol) && currDirection != direction.opposite()
+                    && directions[newRow][newCol] == null) {
+                directions[newRow][newCol] = isInitial ? direction : directions[row][col];
+                queue.add(new BoardCoordinate(newRow, newCol, true));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a GameBatch plays exactly like the same games played one Game at a time.
+ */
+class GameBatchTest {
+
+    private static final int GAMES = 50;
+
+    /*
+    Seeded games with random input agree with their game in the batch after every tick, through every life and
+    until the last game ends.
+     */
+    @Test
+    void batchPlaysLikeSingleGames() {
+        Board board = Board.fromSupportMap();
+        GameSettings settings = new GameSettings();
+        Game[] games = new Game[GAMES];
+        PacmanInput[] inputs = new PacmanInput[GAMES];
+        long[] seeds = new long[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            games[i] = new Game(board, settings, i);
+            inputs[i] = new RandomInput(i);
+            seeds[i] = i;
+        }
+        GameBatch batch = new GameBatch(board, settings, seeds);
+        while (batch.getPlaying() > 0) {
+            for (int i = 0; i < GAMES; i++) {
+                if (games[i].getStatus() == GameStatus.PLAYING) {
+                    Direction direction = inputs[i].nextInput(games[i]);
+                    if (direction != null) {
+                        games[i].handleInput(direction);
+                        batch.handleInput(i, direction);
+                    }
+                    games[i].updateGame();
+                }
+            }
+            batch.step();
+            for (int i = 0; i < GAMES; i++) {
+                assertNull(Games.difference(games[i], batch, i), "game " + i);
+            }
+        }
+    }
+
+    /*
+    Settings the batch does not play are rejected rather than played differently.
+     */
+    @Test
+    void rejectsUnsupportedSettings() {
+        GameSettings settings = new GameSettings();
+        settings.setPathingMode(PathingMode.FLOW_FIELD);
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameBatch(Board.fromSupportMap(), settings, new long[] {1}));
+    }
+}
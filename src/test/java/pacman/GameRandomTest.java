@@ -0,0 +1,61 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that the game's generators draw what they are documented to draw, and that reseeding a game in place
+ * leaves it exactly as a new game with that seed.
+ */
+class GameRandomTest {
+
+    private static final int DRAWS = 10000;
+
+    /*
+    SplitMixRandom draws the same numbers as a SplittableRandom with the same seed, for bounds that are powers of two
+    and bounds that are not.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 5, 7, 1 << 30, Integer.MAX_VALUE})
+    void splitMixDrawsLikeSplittableRandom(int bound) {
+        SplitMixRandom random = new SplitMixRandom(42);
+        SplittableRandom reference = new SplittableRandom(42);
+        for (int i = 0; i < DRAWS; i++) {
+            assertEquals(reference.nextInt(bound), random.nextInt(bound), "draw " + i);
+        }
+    }
+
+    /*
+    A game reseeded after playing for a while keeps its generators but puts them in the states a new game with the
+    seed starts with, so its ghosts draw the same frightened moves from there as that game's would.
+     */
+    @ParameterizedTest
+    @EnumSource(RandomMode.class)
+    void reseedingInPlaceStartsLikeANewGame(RandomMode mode) {
+        Board board = Board.fromSupportMap();
+        GameSettings settings = new GameSettings();
+        settings.setRandomMode(mode);
+        Game game = new Game(board, settings, 1);
+        PacmanInput input = new RandomInput(1);
+        for (int i = 0; i < 200 && game.getStatus() == GameStatus.PLAYING; i++) {
+            Games.tick(game, input);
+        }
+        GameRandom[] generators = new GameRandom[game.getGhosts().length];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = game.getGhosts()[i].getRandom();
+        }
+        game.reseed(7);
+        Game fresh = new Game(board, settings, 7);
+        assertEquals(fresh.getRandom().getState(), game.getRandom().getState());
+        for (int i = 0; i < generators.length; i++) {
+            GameRandom random = game.getGhosts()[i].getRandom();
+            assertSame(generators[i], random, "ghost " + i + " got a new generator");
+            assertEquals(fresh.getGhosts()[i].getRandom().getState(), random.getState(), "ghost " + i);
+        }
+    }
+}
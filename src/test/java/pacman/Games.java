@@ -0,0 +1,94 @@
+package pacman;
+
+/**
+ * Helpers shared by the tests: playing games with an input and comparing two games, or a game with one game of a
+ * batch. The comparisons return a description of the first difference found, or null when the games agree, so that
+ * a failing test reports where two games parted.
+ */
+final class Games {
+
+    private Games() {
+    }
+
+    /*
+    Plays one tick of a game, pressing the direction the input gives first, if any.
+     */
+    static void tick(Game game, PacmanInput input) {
+        Direction direction = input.nextInput(game);
+        if (direction != null) {
+            game.handleInput(direction);
+        }
+        game.updateGame();
+    }
+
+    /*
+    Plays a game with an input until it is won or lost.
+     */
+    static void playOut(Game game, PacmanInput input) {
+        while (game.getStatus() == GameStatus.PLAYING) {
+            tick(game, input);
+        }
+    }
+
+    /*
+    Describes the first difference between two games in tick, status, score, lives or the square of any actor, or
+    returns null when there is none.
+     */
+    static String difference(Game expected, Game actual) {
+        if (expected.getTick() != actual.getTick() || expected.getStatus() != actual.getStatus()
+                || expected.getScore() != actual.getScore() || expected.getLives() != actual.getLives()) {
+            return "tick " + expected.getTick() + ": expected " + describe(expected) + " but was " + describe(actual);
+        }
+        if (expected.getPacman().getRow() != actual.getPacman().getRow()
+                || expected.getPacman().getCol() != actual.getPacman().getCol()) {
+            return "tick " + expected.getTick() + ": pacman at " + expected.getPacman().getRow() + ","
+                    + expected.getPacman().getCol() + " but was at " + actual.getPacman().getRow() + ","
+                    + actual.getPacman().getCol();
+        }
+        Ghost[] expectedGhosts = expected.getGhosts();
+        Ghost[] actualGhosts = actual.getGhosts();
+        for (int i = 0; i < expectedGhosts.length; i++) {
+            if (expectedGhosts[i].getRow() != actualGhosts[i].getRow()
+                    || expectedGhosts[i].getCol() != actualGhosts[i].getCol()) {
+                return "tick " + expected.getTick() + ": ghost " + i + " at " + expectedGhosts[i].getRow() + ","
+                        + expectedGhosts[i].getCol() + " but was at " + actualGhosts[i].getRow() + ","
+                        + actualGhosts[i].getCol();
+            }
+        }
+        return null;
+    }
+
+    /*
+    Describes the first difference between a game and one game of a batch in status, score, lives or the square of
+    any actor, or returns null when there is none.
+     */
+    static String difference(Game game, GameBatch batch, int index) {
+        if (game.getStatus() != batch.getStatus(index) || game.getScore() != batch.getScore(index)
+                || game.getLives() != batch.getLives(index)) {
+            return "tick " + game.getTick() + ": expected " + describe(game) + " but the batch has "
+                    + batch.getStatus(index) + ", score " + batch.getScore(index) + ", lives "
+                    + batch.getLives(index);
+        }
+        if (game.getPacman().getRow() != batch.getPacmanRow(index)
+                || game.getPacman().getCol() != batch.getPacmanCol(index)) {
+            return "tick " + game.getTick() + ": pacman at " + game.getPacman().getRow() + ","
+                    + game.getPacman().getCol() + " but the batch has " + batch.getPacmanRow(index) + ","
+                    + batch.getPacmanCol(index);
+        }
+        Ghost[] ghosts = game.getGhosts();
+        for (int i = 0; i < ghosts.length; i++) {
+            if (ghosts[i].getRow() != batch.getGhostRow(index, i)
+                    || ghosts[i].getCol() != batch.getGhostCol(index, i)) {
+                return "tick " + game.getTick() + ": ghost " + i + " at " + ghosts[i].getRow() + ","
+                        + ghosts[i].getCol() + " but the batch has " + batch.getGhostRow(index, i) + ","
+                        + batch.getGhostCol(index, i);
+            }
+        }
+        return null;
+    }
+
+    private static String describe(Game game) {
+        return game.getStatus() + ", tick " + game.getTick() + ", score " + game.getScore() + ", lives "
+                + game.getLives();
+    }
+}
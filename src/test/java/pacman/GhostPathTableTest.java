@@ -0,0 +1,46 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the precomputed ghost path table against the classic BFS it replaces.
+ */
+class GhostPathTableTest {
+
+    // every heading a ghost can have, including null for a ghost without a direction
+    private static final Direction[] HEADINGS = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN, null};
+
+    /*
+    Every decision the table stores for the support map, for every square, heading and target it covers, is the one
+    the BFS makes.
+     */
+    @Test
+    void tableAgreesWithBfs() {
+        Board board = Board.fromSupportMap();
+        GhostPathTable table = board.getPathTable();
+        int checked = 0;
+        for (int row = 0; row < Constants.MAZE_DIMENSION; row++) {
+            for (int col = 0; col < Constants.MAZE_DIMENSION; col++) {
+                for (int targetRow = -Constants.INKY_ROW; targetRow <= Constants.MAZE_DIMENSION; targetRow++) {
+                    for (int targetCol = -Constants.PINKY_COL;
+                         targetCol <= Constants.RIGHT_EXTREMA + Constants.BLINKY_COL; targetCol++) {
+                        if (!table.covers(row, col, targetRow, targetCol)) {
+                            continue;
+                        }
+                        for (Direction heading : HEADINGS) {
+                            assertEquals(ClassicSearch.direction(board, row, col, heading, targetRow, targetCol),
+                                    table.nextDirection(row, col, heading, targetRow, targetCol),
+                                    "row " + row + " col " + col + " heading " + heading + " target " + targetRow
+                                            + "," + targetCol);
+                            checked++;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 0, "the table covers no decision");
+    }
+}
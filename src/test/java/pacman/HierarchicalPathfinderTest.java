@@ -0,0 +1,36 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks the search over the junction graph against a BFS over every square, on the support map and on generated
+ * mazes.
+ */
+class HierarchicalPathfinderTest {
+
+    private static final int QUERIES = 500;
+    private static final long SEED = 15;
+    private static final int SUPPORT_MAP_SIZE = 23;
+
+    /*
+    On random queries from junctions, the search finds paths exactly as long as the BFS does.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {SUPPORT_MAP_SIZE, 101, 201})
+    void searchesFindShortestPaths(int size) {
+        Board board = size == SUPPORT_MAP_SIZE ? Board.fromSupportMap() : MazeGenerator.generate(size, SEED);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(board);
+        HierarchicalPathfinder.Search search = pathfinder.new Search();
+        SquareSearch squares = new SquareSearch(pathfinder.getGraph());
+        for (int[] query : SquareSearch.randomQueries(pathfinder.getGraph(), QUERIES, SEED)) {
+            Direction heading = SquareSearch.HEADINGS[query[2]];
+            int expected = squares.distance(query[0], query[1], heading, query[3], query[4]);
+            String where = "from " + query[0] + "," + query[1] + " heading " + heading + " to " + query[3] + ","
+                    + query[4];
+            assertEquals(expected, search.distance(query[0], query[1], heading, query[3], query[4]), where);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks that ghosts deciding in parallel on a pool play exactly like ghosts deciding one by one.
+ */
+class ParallelGhostsTest {
+
+    private static final int GAMES = 10;
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    /*
+    Seeded games with random input agree after every tick, in every pathing mode and with more ghosts than one
+    task decides for.
+     */
+    @ParameterizedTest
+    @CsvSource({"CLASSIC, 4", "CLASSIC, 64", "HIERARCHICAL, 4", "HIERARCHICAL, 64", "FLOW_FIELD, 4",
+            "FLOW_FIELD, 64"})
+    void parallelGhostsPlayLikeSequentialOnes(PathingMode pathing, int ghosts) {
+        Board board = Board.fromSupportMap();
+        GameSettings settings = new GameSettings();
+        settings.setPathingMode(pathing);
+        settings.setGhostCount(ghosts);
+        for (int i = 0; i < GAMES; i++) {
+            Game sequential = new Game(board, settings, i);
+            Game parallel = new Game(board, settings, i);
+            parallel.setGhostPool(pool);
+            PacmanInput sequentialInput = new RandomInput(i);
+            PacmanInput parallelInput = new RandomInput(i);
+            while (sequential.getStatus() == GameStatus.PLAYING) {
+                Games.tick(sequential, sequentialInput);
+                Games.tick(parallel, parallelInput);
+                assertNull(Games.difference(sequential, parallel), "game " + i);
+            }
+        }
+    }
+}
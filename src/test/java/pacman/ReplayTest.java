@@ -0,0 +1,96 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that logs cut off at any byte still replay as unfinished games, and that a log is only replayed on the maze
+ * it was recorded on.
+ */
+class ReplayTest {
+
+    private static final long SEED = 3;
+
+    @TempDir
+    Path directory;
+
+    /*
+    A log cut off at any byte after its header, inside an input or inside the closing record, reads as an
+    unfinished game holding the whole inputs before the cut, and replays to the state the recorded game had at the
+    tick of the last of them. Cut off inside the header it is rejected.
+     */
+    @Test
+    void truncatedLogsReplayAsUnfinished() throws IOException {
+        Board board = Board.fromSupportMap();
+        List<GameSnapshot> snapshots = new ArrayList<>();
+        Path path = this.record(board, snapshots);
+        byte[] log = Files.readAllBytes(path);
+        Replay full = Replay.read(path);
+        Path cut = this.directory.resolve("cut" + Replay.EXTENSION);
+        boolean headerRead = false;
+        int inputs = 0;
+        for (int length = 0; length < log.length; length++) {
+            Files.write(cut, Arrays.copyOf(log, length));
+            Replay replay;
+            try {
+                replay = Replay.read(cut);
+            } catch (IllegalArgumentException e) {
+                assertFalse(headerRead, "cut at " + length + " rejected after a shorter cut was read");
+                continue;
+            }
+            headerRead = true;
+            assertTrue(replay.getInputCount() >= inputs && replay.getInputCount() <= full.getInputCount(),
+                    "cut at " + length);
+            inputs = replay.getInputCount();
+            Game game = replay.newGame(board);
+            int ticks = replay.play(game);
+            assertTrue(replay.matches(game), "cut at " + length);
+            Game expected = new Game(board, new GameSettings(), SEED);
+            expected.restore(snapshots.get(ticks));
+            assertNull(Games.difference(expected, game), "cut at " + length);
+        }
+        assertTrue(headerRead);
+    }
+
+    /*
+    A log carries the dimensions and fingerprint of its maze, so it cannot be replayed on a maze of the same size
+    with other walls.
+     */
+    @Test
+    void rejectsOtherMazes() throws IOException {
+        Board board = Board.fromSupportMap();
+        Replay replay = Replay.read(this.record(board, new ArrayList<>()));
+        assertThrows(IllegalArgumentException.class,
+                () -> replay.newGame(MazeGenerator.generate(board.getRows(), SEED)));
+        Game game = replay.newGame(Board.fromSupportMap());
+        replay.play(game);
+        assertTrue(replay.matches(game));
+    }
+
+    /*
+    Records a seeded game with random input to the end, adding a snapshot of the game before every tick.
+     */
+    private Path record(Board board, List<GameSnapshot> snapshots) throws IOException {
+        Path path = this.directory.resolve("game" + Replay.EXTENSION);
+        Game game = new Game(board, new GameSettings(), SEED);
+        PacmanInput input = new RandomInput(SEED);
+        InputRecorder recorder = new InputRecorder(game, path);
+        while (game.getStatus() == GameStatus.PLAYING) {
+            snapshots.add(game.snapshot());
+            Games.tick(game, input);
+        }
+        recorder.close();
+        return path;
+    }
+}
@@ -0,0 +1,99 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that games rewound from snapshots while recording leave a log that replays to the game as finally played,
+ * and that snapshots are only restored into games they belong to.
+ */
+class RewindTest {
+
+    private static final int GAMES = 20;
+    private static final int REWIND_INTERVAL = 10; // ticks between a snapshot and going back to it
+
+    @TempDir
+    Path directory;
+
+    /*
+    Every few ticks a seeded game goes back to the snapshot taken a few ticks before, once, and plays on with
+    different input. Replaying the log reaches the same final state.
+     */
+    @Test
+    void rewoundRecordingReplays() throws IOException {
+        Board board = Board.fromSupportMap();
+        for (int i = 0; i < GAMES; i++) {
+            Path path = this.directory.resolve("game-" + i + Replay.EXTENSION);
+            Game game = new Game(board, new GameSettings(), i);
+            PacmanInput input = new RandomInput(i);
+            GameSnapshot snapshot = null;
+            int rewoundTo = -1;
+            try (InputRecorder recorder = new InputRecorder(game, path)) {
+                while (game.getStatus() == GameStatus.PLAYING) {
+                    if (game.getTick() % REWIND_INTERVAL == 0 && game.getTick() != rewoundTo) {
+                        snapshot = game.snapshot();
+                    } else if (game.getTick() % REWIND_INTERVAL == REWIND_INTERVAL - 1 && snapshot != null) {
+                        game.restore(snapshot);
+                        rewoundTo = snapshot.getTick();
+                        snapshot = null;
+                    }
+                    Games.tick(game, input);
+                }
+                assertTrue(recorder.getInputCount() > 0, "game " + i + " recorded no input");
+            }
+            Replay replay = Replay.read(path);
+            Game replayed = replay.newGame(board);
+            replay.play(replayed);
+            assertTrue(replay.matches(replayed), "game " + i + " does not match its recorded end");
+            assertNull(Games.difference(game, replayed), "game " + i);
+        }
+    }
+
+    /*
+    A snapshot taken from another game cannot be restored while a recorder is attached, since its log could not
+    lead to the snapshot's state.
+     */
+    @Test
+    void rejectsSnapshotsFromOtherGamesWhileRecording() throws IOException {
+        Board board = Board.fromSupportMap();
+        Game game = new Game(board, new GameSettings(), 1);
+        GameSnapshot other = new Game(board, new GameSettings(), 1).snapshot();
+        InputRecorder recorder = new InputRecorder(game, this.directory.resolve("game" + Replay.EXTENSION));
+        assertThrows(IllegalStateException.class, () -> game.restore(other));
+        recorder.close();
+    }
+
+    /*
+    A snapshot is only restored into a game on the same maze with the same random mode and tick: a maze of other
+    dimensions or of the same dimensions with other walls, the other random mode or another tick is rejected before
+    anything is restored.
+     */
+    @Test
+    void rejectsSnapshotsOfOtherGames() {
+        Board board = Board.fromSupportMap();
+        GameSnapshot snapshot = new Game(board, new GameSettings(), 1).snapshot();
+        GameSettings shared = new GameSettings();
+        shared.setRandomMode(RandomMode.SHARED);
+        GameSettings shortTick = new GameSettings();
+        shortTick.setTickDuration(Constants.TIMELINE_DURATION / 2);
+        Game[] others = {
+            new Game(MazeGenerator.generate(25, 1), new GameSettings(), 1),
+            new Game(MazeGenerator.generate(board.getRows(), 1), new GameSettings(), 1),
+            new Game(board, shared, 1),
+            new Game(board, shortTick, 1)
+        };
+        for (Game other : others) {
+            int tick = other.getTick();
+            assertThrows(IllegalArgumentException.class, () -> other.restore(snapshot));
+            assertEquals(tick, other.getTick());
+        }
+        new Game(Board.fromSupportMap(), new GameSettings(), 2).restore(snapshot);
+    }
+}
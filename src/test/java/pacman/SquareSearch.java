@@ -0,0 +1,99 @@
+package pacman;
+
+import java.util.Random;
+
+/**
+ * Reference search over every square: a BFS over pairs of a square and the direction the ghost entered it by,
+ * under the same rules as the junction graph (no turning back except on a junction). Its scratch arrays are
+ * reused between searches.
+ */
+final class SquareSearch {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // the heading of a query is an index into this array, null standing for a ghost without a direction
+    static final Direction[] HEADINGS = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN, null};
+
+    private JunctionGraph graph;
+    private int[] distance; // indexed by square * directions + direction entered by
+    private int[] epochs;
+    private int epoch;
+    private int[] queue;
+
+    SquareSearch(JunctionGraph graph) {
+        this.graph = graph;
+        int states = graph.getBoard().getSquares() * DIRECTIONS.length;
+        this.distance = new int[states];
+        this.epochs = new int[states];
+        this.queue = new int[states];
+    }
+
+    /*
+    Returns the length of the shortest path that does not start by reversing the current direction.
+     */
+    int distance(int row, int col, Direction currDirection, int targetRow, int targetCol) {
+        Board board = this.graph.getBoard();
+        int start = board.squareIndex(row, col);
+        int target = board.squareIndex(targetRow, targetCol);
+        this.epoch++;
+        int head = 0;
+        int tail = 0;
+        for (Direction direction : DIRECTIONS) {
+            tail = this.visit(start, direction, 1, currDirection, tail);
+        }
+        while (head < tail) {
+            int state = this.queue[head++];
+            int square = state / DIRECTIONS.length;
+            if (square == target) {
+                return this.distance[state];
+            }
+            Direction entered = DIRECTIONS[state % DIRECTIONS.length];
+            Direction forbidden = this.graph.isJunction(square) ? null : entered;
+            for (Direction direction : DIRECTIONS) {
+                tail = this.visit(square, direction, this.distance[state] + 1, forbidden, tail);
+            }
+        }
+        return HierarchicalPathfinder.UNREACHABLE;
+    }
+
+    /*
+    Queues the square reached by moving one square in a direction, unless the move reverses the given heading.
+    Returns the new end of the queue.
+     */
+    private int visit(int square, Direction direction, int distance, Direction heading, int tail) {
+        int neighbour = this.graph.neighbour(square, direction);
+        if (neighbour < 0 || (heading != null && direction == heading.opposite())) {
+            return tail;
+        }
+        int state = neighbour * DIRECTIONS.length + direction.ordinal();
+        if (this.epochs[state] == this.epoch) {
+            return tail;
+        }
+        this.epochs[state] = this.epoch;
+        this.distance[state] = distance;
+        this.queue[tail] = state;
+        return tail + 1;
+    }
+
+    /*
+    Generates queries of the form {row, col, heading, targetRow, targetCol} from junctions, where ghosts have a real
+    choice, towards random open squares, leaving out the wrapping squares at the two ends of the tunnel.
+     */
+    static int[][] randomQueries(JunctionGraph graph, int count, long seed) {
+        Board board = graph.getBoard();
+        Random random = new Random(seed);
+        int[][] queries = new int[count][];
+        int i = 0;
+        while (i < count) {
+            int start = graph.nodeSquare(random.nextInt(graph.getNodeCount()));
+            int target = random.nextInt(board.getSquares());
+            int heading = random.nextInt(HEADINGS.length);
+            int col = start % board.getCols();
+            if (graph.isOpen(target) && target != start && col > 0 && col < board.getCols() - 1) {
+                queries[i] = new int[] {start / board.getCols(), col, heading,
+                        target / board.getCols(), target % board.getCols()};
+                i++;
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,115 @@
+package pacman;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the tick is a setting that changes how finely a game is played but not how fast: the mode timers last
+ * their seconds whatever the tick, and a game with shorter ticks moves its actors square by square like one with the
+ * default tick. Games with another tick record and replay like any other.
+ */
+class TickDurationTest {
+
+    private static final long SEED = 5;
+    private static final double SHORT_TICK = Constants.TIMELINE_DURATION / 3;
+    // squares played before the first switch out of chase mode, whose 10 seconds do not end on a whole square
+    private static final int SQUARES = 30;
+
+    @TempDir
+    Path directory;
+
+    /*
+    Frightened mode lasts its seconds, to within a tick, with the default tick, a third of it and the tick the window
+    plays with.
+     */
+    @Test
+    void frightenedModeLastsItsSeconds() {
+        double[] durations = {Constants.TIMELINE_DURATION, SHORT_TICK, Constants.PLAY_TICK_DURATION};
+        for (double duration : durations) {
+            GameSettings settings = new GameSettings();
+            settings.setTickDuration(duration);
+            Game game = new Game(Board.fromSupportMap(), settings, SEED);
+            game.setFrightMode(true);
+            int ticks = 0;
+            while (game.getFrightMode()) {
+                game.updateGame();
+                ticks++;
+            }
+            double seconds = ticks * duration;
+            assertTrue(seconds >= settings.getFrightenedLimit() - 1e-9
+                    && seconds <= settings.getFrightenedLimit() + duration + 1e-9,
+                    "tick " + duration + " lasted " + seconds + " seconds");
+        }
+    }
+
+    /*
+    With a third of the default tick, the actors move on every third tick and the game holds, after each of them, the
+    score, lives and squares the default game holds after the matching tick.
+     */
+    @Test
+    void shorterTicksPlayTheSameSquares() {
+        Board board = Board.fromSupportMap();
+        GameSettings settings = new GameSettings();
+        settings.setTickDuration(SHORT_TICK);
+        Game coarse = new Game(board, new GameSettings(), SEED);
+        Game fine = new Game(board, settings, SEED);
+        assertEquals(3, fine.getTicksPerSquare());
+        PacmanInput coarseInput = new RandomInput(SEED);
+        PacmanInput fineInput = new RandomInput(SEED);
+        for (int square = 0; square < SQUARES; square++) {
+            Games.tick(coarse, coarseInput);
+            for (int tick = 0; tick < fine.getTicksPerSquare(); tick++) {
+                assertEquals(tick == fine.getTicksPerSquare() - 1, fine.isMoveDue());
+                Games.tick(fine, fineInput);
+            }
+            assertEquals(0, fine.getTicksSinceMove());
+            assertEquals(coarse.getScore(), fine.getScore(), "square " + square);
+            assertEquals(coarse.getLives(), fine.getLives(), "square " + square);
+            assertEquals(coarse.getPacman().getRow(), fine.getPacman().getRow(), "square " + square);
+            assertEquals(coarse.getPacman().getCol(), fine.getPacman().getCol(), "square " + square);
+            for (int i = 0; i < coarse.getGhosts().length; i++) {
+                assertEquals(coarse.getGhosts()[i].getRow(), fine.getGhosts()[i].getRow(), "square " + square);
+                assertEquals(coarse.getGhosts()[i].getCol(), fine.getGhosts()[i].getCol(), "square " + square);
+            }
+        }
+    }
+
+    /*
+    A tick must split the time to cross a square into whole ticks.
+     */
+    @Test
+    void rejectsTicksThatDoNotSplitASquare() {
+        GameSettings settings = new GameSettings();
+        assertThrows(IllegalArgumentException.class, () -> settings.setTickDuration(0.07));
+        assertThrows(IllegalArgumentException.class, () -> settings.setTickDuration(0));
+        assertEquals(Constants.TIMELINE_DURATION, settings.getTickDuration());
+        assertEquals(1, settings.getTicksPerSquare());
+    }
+
+    /*
+    A game recorded with shorter ticks carries its tick in the log and replays to the same result.
+     */
+    @Test
+    void recordsAndReplaysShorterTicks() throws IOException {
+        Board board = Board.fromSupportMap();
+        GameSettings settings = new GameSettings();
+        settings.setTickDuration(SHORT_TICK);
+        Game game = new Game(board, settings, SEED);
+        Path path = this.directory.resolve("game" + Replay.EXTENSION);
+        InputRecorder recorder = new InputRecorder(game, path);
+        Games.playOut(game, new RandomInput(SEED));
+        recorder.close();
+        Replay replay = Replay.read(path);
+        Game replayed = replay.newGame(board);
+        assertEquals(SHORT_TICK, replayed.getTickDuration(), 1e-12);
+        replay.play(replayed);
+        assertTrue(replay.matches(replayed));
+        assertEquals(game.getTick(), replayed.getTick());
+    }
+}